@@ -6,12 +6,22 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.recyclerview.widget.RecyclerView
+import com.damiao.diy.view.swipe.DuplexEdgeEffectFactory
 import com.damiao.diy.view.swipe.DuplexSwipeRefreshLayout
+import com.damiao.diy.view.swipe.RecyclerViewRefreshAnchor
 import kotlinx.android.synthetic.main.activity_duplex_swipe.*
 import kotlinx.android.synthetic.main.item_layout_duplex_swipe_demo_bg.view.*
+import org.jetbrains.anko.toast
 
 class DuplexSwipeActivity : AppCompatActivity() {
 
+    companion object {
+        //模拟数据源的总条数，加载到这么多条之后底部进入没有更多数据状态
+        private const val MAX_ITEM_COUNT = 50
+        //没有更多数据状态的退避时长，过后再上拉会重新尝试加载
+        private const val END_REACHED_BACKOFF_MILLIS = 30_000L
+    }
+
     private val items = mutableListOf<Int>()
 
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -23,6 +33,8 @@ class DuplexSwipeActivity : AppCompatActivity() {
         srl_duplex_swipe_bg.setOnTopRefreshListener {
             srl_duplex_swipe_bg.postDelayed({
                 initItem()
+                //重新拉取了第一页，恢复底部的上拉加载
+                srl_duplex_swipe_bg.setBottomEndReached(false)
                 //使顶部刷新球消失
                 srl_duplex_swipe_bg.isTopRefreshing = false
                 rv_duplex_swipe_info.adapter?.notifyDataSetChanged()
@@ -31,19 +43,31 @@ class DuplexSwipeActivity : AppCompatActivity() {
         //设置底部刷新球回调
         srl_duplex_swipe_bg.setOnBottomRefreshListener {
             srl_duplex_swipe_bg.postDelayed({
-                val oldSize = items.size
+                //退避到期后又触发了加载，但数据已经全部加载完，直接收起刷新球并重新进入没有更多数据状态
+                if (items.size >= MAX_ITEM_COUNT) {
+                    srl_duplex_swipe_bg.completeBottomRefresh(0)
+                    srl_duplex_swipe_bg.setBottomEndReached(true)
+                    return@postDelayed
+                }
                 for (i in 1..10) {
                     items.add(i)
                 }
-                rv_duplex_swipe_info.adapter?.notifyItemRangeInserted(items.size - 1, 10)
-                rv_duplex_swipe_info.scrollToPosition(oldSize)
-                //使底部刷新球消失
-                srl_duplex_swipe_bg.isBottomRefreshing = false
+                //通知列表插入了10条数据并保持当前可见的行不动，同时使底部刷新球消失
+                srl_duplex_swipe_bg.completeBottomRefresh(10)
+                if (items.size >= MAX_ITEM_COUNT) {
+                    srl_duplex_swipe_bg.setBottomEndReached(true)
+                }
             }, 3000)
         }
+        //没有更多数据时上拉只有阻尼回弹，用力拉过阈值时给出提示
+        srl_duplex_swipe_bg.setBottomEndReachedBackoff(END_REACHED_BACKOFF_MILLIS)
+        srl_duplex_swipe_bg.setOnBottomEndReachedPullListener { toast("No more items") }
         srl_duplex_swipe_bg.setColorSchemeResources(R.color.colorAccent, R.color.colorPrimary)
         initItem()
         rv_duplex_swipe_info.adapter = PikachuAdapter()
+        //指示球活动期间不再绘制列表自身的越界光晕
+        rv_duplex_swipe_info.edgeEffectFactory = DuplexEdgeEffectFactory(srl_duplex_swipe_bg)
+        srl_duplex_swipe_bg.setRefreshAnchor(RecyclerViewRefreshAnchor(rv_duplex_swipe_info))
     }
 
     private fun initItem() {
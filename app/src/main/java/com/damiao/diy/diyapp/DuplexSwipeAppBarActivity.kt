@@ -0,0 +1,140 @@
+package com.damiao.diy.diyapp
+
+import android.os.Bundle
+import android.view.Choreographer
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.appcompat.app.AppCompatActivity
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.damiao.diy.view.swipe.DuplexEdgeEffectFactory
+import com.damiao.diy.view.swipe.DuplexSwipeRefreshLayout
+import com.google.android.material.appbar.AppBarLayout
+import kotlinx.android.synthetic.main.activity_duplex_swipe_app_bar.*
+import kotlinx.android.synthetic.main.item_layout_duplex_stress_text.view.*
+
+/**
+ * DuplexSwipeRefreshLayout放在CoordinatorLayout中、上方有可折叠AppBarLayout时的测试页面。
+ * 逐帧统计嵌套滑动回调次数、AppBarLayout偏移变化和顶部指示球位移变化，
+ * 同一帧内AppBarLayout和指示球同时移动记为一次冲突，正常情况下冲突帧数应始终为0。
+ */
+class DuplexSwipeAppBarActivity : AppCompatActivity() {
+
+    companion object {
+        private const val ITEM_COUNT = 60
+        //模拟加载耗时
+        private const val LOAD_DELAY_MILLIS = 1000L
+    }
+
+    //两帧之间AppBarLayout偏移变化的次数
+    private var appBarOffsetChanges = 0
+    private var lastAppBarOffset = 0
+
+    private val frameCounter = FrameCounter()
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        setContentView(R.layout.activity_duplex_swipe_app_bar)
+
+        srl_duplex_app_bar.setOnTopRefreshListener {
+            srl_duplex_app_bar.postDelayed({ srl_duplex_app_bar.isTopRefreshing = false }, LOAD_DELAY_MILLIS)
+        }
+        srl_duplex_app_bar.setOnBottomRefreshListener {
+            srl_duplex_app_bar.postDelayed({ srl_duplex_app_bar.isBottomRefreshing = false }, LOAD_DELAY_MILLIS)
+        }
+        srl_duplex_app_bar.setColorSchemeResources(R.color.colorAccent, R.color.colorPrimary)
+
+        rv_duplex_app_bar.layoutManager = LinearLayoutManager(this)
+        rv_duplex_app_bar.adapter = RowAdapter()
+        rv_duplex_app_bar.edgeEffectFactory = DuplexEdgeEffectFactory(srl_duplex_app_bar)
+
+        abl_duplex_app_bar.addOnOffsetChangedListener(AppBarLayout.OnOffsetChangedListener { _, verticalOffset ->
+            if (verticalOffset != lastAppBarOffset) {
+                lastAppBarOffset = verticalOffset
+                appBarOffsetChanges++
+            }
+        })
+    }
+
+    override fun onResume() {
+        super.onResume()
+        frameCounter.start()
+    }
+
+    override fun onPause() {
+        super.onPause()
+        frameCounter.stop()
+    }
+
+    class RowViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView)
+
+    inner class RowAdapter : RecyclerView.Adapter<RowViewHolder>() {
+
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RowViewHolder =
+            RowViewHolder(
+                LayoutInflater.from(parent.context)
+                    .inflate(R.layout.item_layout_duplex_stress_text, parent, false)
+            )
+
+        override fun getItemCount(): Int = ITEM_COUNT
+
+        override fun onBindViewHolder(holder: RowViewHolder, position: Int) {
+            holder.itemView.tv_item_stress_text.text = "Row #$position"
+        }
+    }
+
+    /**
+     * 每帧读取并清零上一帧以来的计数，累计最大值和冲突帧数后刷新浮层
+     */
+    private inner class FrameCounter : Choreographer.FrameCallback {
+        private var running = false
+        private var lastSpinnerOffset = 0
+        private var frames = 0
+        private var activeFrames = 0
+        private var maxCallbacksPerFrame = 0
+        private var totalAppBarFrames = 0
+        private var totalSpinnerFrames = 0
+        private var conflictFrames = 0
+
+        fun start() {
+            if (running) return
+            running = true
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+
+        fun stop() {
+            running = false
+            Choreographer.getInstance().removeFrameCallback(this)
+        }
+
+        override fun doFrame(frameTimeNanos: Long) {
+            if (!running) return
+            frames++
+            val callbacks = srl_duplex_app_bar.preScrollCalls + srl_duplex_app_bar.scrollCalls
+            srl_duplex_app_bar.preScrollCalls = 0
+            srl_duplex_app_bar.scrollCalls = 0
+
+            val appBarMoved = appBarOffsetChanges > 0
+            appBarOffsetChanges = 0
+            val spinnerOffset = srl_duplex_app_bar.getPullOffset(DuplexSwipeRefreshLayout.EDGE_TOP)
+            val spinnerMoved = spinnerOffset != lastSpinnerOffset
+            lastSpinnerOffset = spinnerOffset
+
+            if (callbacks > 0 || appBarMoved || spinnerMoved) {
+                activeFrames++
+                maxCallbacksPerFrame = maxOf(maxCallbacksPerFrame, callbacks)
+                if (appBarMoved) totalAppBarFrames++
+                if (spinnerMoved) totalSpinnerFrames++
+                if (appBarMoved && spinnerMoved) conflictFrames++
+                tv_duplex_app_bar_overlay.text = String.format(
+                    "frames %d active %d\nnested calls %d max %d/frame\n" +
+                            "app bar moved %d frames\nspinner moved %d frames\nconflict frames %d",
+                    frames, activeFrames, callbacks, maxCallbacksPerFrame,
+                    totalAppBarFrames, totalSpinnerFrames, conflictFrames
+                )
+            }
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+    }
+}
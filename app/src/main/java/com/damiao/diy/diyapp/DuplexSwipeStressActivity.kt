@@ -0,0 +1,321 @@
+package com.damiao.diy.diyapp
+
+import android.os.Bundle
+import android.os.SystemClock
+import android.view.Choreographer
+import android.view.LayoutInflater
+import android.view.MotionEvent
+import android.view.View
+import android.view.ViewGroup
+import androidx.appcompat.app.AppCompatActivity
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.damiao.diy.view.swipe.DuplexEdgeEffectFactory
+import com.damiao.diy.view.swipe.DuplexSwipeRefreshLayout
+import com.damiao.diy.view.swipe.RecyclerViewRefreshAnchor
+import kotlinx.android.synthetic.main.activity_duplex_swipe_stress.*
+import kotlinx.android.synthetic.main.item_layout_duplex_stress_card.view.*
+import kotlinx.android.synthetic.main.item_layout_duplex_stress_text.view.*
+import kotlinx.android.synthetic.main.item_layout_duplex_swipe_demo_bg.view.*
+
+/**
+ * DuplexSwipeRefreshLayout的压力测试页面，用于在本地复现线上规模下的表现：
+ * 十万行以上、多种item类型的列表，可选的慢绑定，以及在两端自动反复拉动刷新。
+ * 右上角浮层展示帧耗时统计，以及每次拉动期间列表的布局次数和绑定次数。
+ */
+class DuplexSwipeStressActivity : AppCompatActivity() {
+
+    companion object {
+        //列表初始行数
+        private const val INITIAL_ITEM_COUNT = 100_000
+        //每次底部加载追加的行数
+        private const val PAGE_SIZE = 1_000
+        //模拟加载耗时，比普通演示页面短，便于快速反复拉动
+        private const val LOAD_DELAY_MILLIS = 400L
+        //慢绑定的间隔，每隔多少行出现一个慢绑定
+        private const val SLOW_BIND_EVERY = 7
+        //慢绑定在主线程空转的时长
+        private const val SLOW_BIND_MILLIS = 6L
+        //自动拉动一次持续的帧数
+        private const val PULL_FRAMES = 20
+        //自动拉动一次手指移动的总距离
+        private const val PULL_DISTANCE_DP = 300
+        //帧耗时统计的窗口大小
+        private const val FRAME_WINDOW = 120
+        //浮层每隔多少帧刷新一次
+        private const val OVERLAY_UPDATE_FRAMES = 15
+
+        private const val TYPE_TEXT = 0
+        private const val TYPE_IMAGE = 1
+        private const val TYPE_CARD = 2
+    }
+
+    //当前行数，item内容全部由position计算，不额外持有数据
+    private var itemCount = INITIAL_ITEM_COUNT
+    private var slowBind = false
+
+    //当前这次拉动期间的布局、绑定次数
+    private var pullLayouts = 0
+    private var pullBinds = 0
+    //上一次拉动的布局、绑定次数
+    private var lastPullLayouts = 0
+    private var lastPullBinds = 0
+    private var pullCount = 0
+
+    private val frameMonitor = FrameMonitor()
+    private val pullDriver = PullDriver()
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        setContentView(R.layout.activity_duplex_swipe_stress)
+
+        srl_duplex_stress.setOnTopRefreshListener {
+            srl_duplex_stress.postDelayed({
+                itemCount = INITIAL_ITEM_COUNT
+                rv_duplex_stress.adapter?.notifyDataSetChanged()
+                srl_duplex_stress.isTopRefreshing = false
+            }, LOAD_DELAY_MILLIS)
+        }
+        srl_duplex_stress.setOnBottomRefreshListener {
+            srl_duplex_stress.postDelayed({
+                itemCount += PAGE_SIZE
+                srl_duplex_stress.completeBottomRefresh(PAGE_SIZE)
+            }, LOAD_DELAY_MILLIS)
+        }
+        srl_duplex_stress.setColorSchemeResources(R.color.colorAccent, R.color.colorPrimary)
+
+        //onLayoutCompleted在列表每完成一次布局时回调，用来统计布局次数
+        rv_duplex_stress.layoutManager = object : LinearLayoutManager(this) {
+            override fun onLayoutCompleted(state: RecyclerView.State?) {
+                super.onLayoutCompleted(state)
+                pullLayouts++
+            }
+        }
+        rv_duplex_stress.adapter = StressAdapter()
+        rv_duplex_stress.edgeEffectFactory = DuplexEdgeEffectFactory(srl_duplex_stress)
+        srl_duplex_stress.setRefreshAnchor(RecyclerViewRefreshAnchor(rv_duplex_stress))
+
+        sw_duplex_stress_slow_bind.setOnCheckedChangeListener { _, isChecked ->
+            slowBind = isChecked
+        }
+        sw_duplex_stress_auto_pull.setOnCheckedChangeListener { _, isChecked ->
+            if (isChecked) pullDriver.start() else pullDriver.stop()
+        }
+    }
+
+    override fun onResume() {
+        super.onResume()
+        frameMonitor.start()
+        if (sw_duplex_stress_auto_pull.isChecked) {
+            pullDriver.start()
+        }
+    }
+
+    override fun onPause() {
+        super.onPause()
+        frameMonitor.stop()
+        pullDriver.stop()
+    }
+
+    override fun dispatchTouchEvent(ev: MotionEvent): Boolean {
+        //手动拉动时以按下作为一次拉动的开始
+        if (ev.actionMasked == MotionEvent.ACTION_DOWN) {
+            beginPull()
+        }
+        return super.dispatchTouchEvent(ev)
+    }
+
+    /**
+     * 开始一次新的拉动，保存上一次拉动的计数并清零
+     */
+    private fun beginPull() {
+        lastPullLayouts = pullLayouts
+        lastPullBinds = pullBinds
+        pullLayouts = 0
+        pullBinds = 0
+        pullCount++
+    }
+
+    /**
+     * 在主线程空转，模拟绑定时解析数据、计算文本等耗时操作
+     */
+    private fun spin(millis: Long) {
+        val end = SystemClock.uptimeMillis() + millis
+        while (SystemClock.uptimeMillis() < end) {
+            //空转
+        }
+    }
+
+    class StressViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView)
+
+    inner class StressAdapter : RecyclerView.Adapter<StressViewHolder>() {
+
+        override fun getItemViewType(position: Int): Int = when (position % 5) {
+            0 -> TYPE_CARD
+            1, 3 -> TYPE_IMAGE
+            else -> TYPE_TEXT
+        }
+
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): StressViewHolder {
+            val layout = when (viewType) {
+                TYPE_CARD -> R.layout.item_layout_duplex_stress_card
+                TYPE_IMAGE -> R.layout.item_layout_duplex_swipe_demo_bg
+                else -> R.layout.item_layout_duplex_stress_text
+            }
+            return StressViewHolder(LayoutInflater.from(parent.context).inflate(layout, parent, false))
+        }
+
+        override fun getItemCount(): Int = itemCount
+
+        override fun onBindViewHolder(holder: StressViewHolder, position: Int) {
+            pullBinds++
+            if (slowBind && position % SLOW_BIND_EVERY == 0) {
+                spin(SLOW_BIND_MILLIS)
+            }
+            when (holder.itemViewType) {
+                TYPE_CARD -> {
+                    holder.itemView.tv_item_stress_card_title.text = "Card #$position"
+                    holder.itemView.tv_item_stress_card_desc.text =
+                        "Row ${position + 1} of $itemCount, type ${position % 5}"
+                }
+                TYPE_IMAGE -> holder.itemView.iv_item_game.alpha = if (position % 2 == 0) 1f else .6f
+                else -> holder.itemView.tv_item_stress_text.text = "Row #$position"
+            }
+        }
+    }
+
+    /**
+     * 通过Choreographer统计相邻两帧的间隔，定期刷新浮层
+     */
+    private inner class FrameMonitor : Choreographer.FrameCallback {
+        private val frameMillis = FloatArray(FRAME_WINDOW)
+        private var frameIndex = 0
+        private var frameFilled = 0
+        private var lastFrameTimeNanos = 0L
+        private var framesSinceUpdate = 0
+        private var running = false
+
+        fun start() {
+            if (running) return
+            running = true
+            lastFrameTimeNanos = 0L
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+
+        fun stop() {
+            running = false
+            Choreographer.getInstance().removeFrameCallback(this)
+        }
+
+        override fun doFrame(frameTimeNanos: Long) {
+            if (!running) return
+            if (lastFrameTimeNanos != 0L) {
+                frameMillis[frameIndex] = (frameTimeNanos - lastFrameTimeNanos) / 1_000_000f
+                frameIndex = (frameIndex + 1) % FRAME_WINDOW
+                frameFilled = minOf(frameFilled + 1, FRAME_WINDOW)
+            }
+            lastFrameTimeNanos = frameTimeNanos
+            if (++framesSinceUpdate >= OVERLAY_UPDATE_FRAMES) {
+                framesSinceUpdate = 0
+                updateOverlay()
+            }
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+
+        private fun updateOverlay() {
+            if (frameFilled == 0) return
+            //超过1.5个刷新周期的帧记为卡顿
+            val jankThreshold = 1500f / windowManager.defaultDisplay.refreshRate
+            var sum = 0f
+            var max = 0f
+            var janky = 0
+            for (i in 0 until frameFilled) {
+                val millis = frameMillis[i]
+                sum += millis
+                max = maxOf(max, millis)
+                if (millis > jankThreshold) janky++
+            }
+            tv_duplex_stress_overlay.text = String.format(
+                "frame avg %.1fms max %.1fms\njank %d/%d\nrows %d\n" +
+                        "pull #%d layouts %d binds %d\nprev layouts %d binds %d",
+                sum / frameFilled, max, janky, frameFilled, itemCount,
+                pullCount, pullLayouts, pullBinds, lastPullLayouts, lastPullBinds
+            )
+        }
+    }
+
+    /**
+     * 自动在顶部和底部交替拉动：等两端指示球都回到空闲状态后，把列表滚动到对应一端，
+     * 再向DuplexSwipeRefreshLayout逐帧注入一次完整的按下、移动、抬起手势
+     */
+    private inner class PullDriver : Choreographer.FrameCallback {
+        private var running = false
+        private var pullTop = true
+        //-1表示等待空闲，0表示已滚动到对应一端、等待列表布局，大于0表示正在拖动的帧数
+        private var frame = -1
+        private var downTime = 0L
+        private var startY = 0f
+
+        fun start() {
+            if (running) return
+            running = true
+            frame = -1
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+
+        fun stop() {
+            if (!running) return
+            running = false
+            Choreographer.getInstance().removeFrameCallback(this)
+            if (frame > 0) {
+                inject(MotionEvent.ACTION_CANCEL, startY)
+            }
+            frame = -1
+        }
+
+        override fun doFrame(frameTimeNanos: Long) {
+            if (!running) return
+            when {
+                frame < 0 -> {
+                    if (!srl_duplex_stress.isEdgeActive(DuplexSwipeRefreshLayout.EDGE_TOP)
+                        && !srl_duplex_stress.isEdgeActive(DuplexSwipeRefreshLayout.EDGE_BOTTOM)
+                    ) {
+                        rv_duplex_stress.stopScroll()
+                        rv_duplex_stress.scrollToPosition(if (pullTop) 0 else itemCount - 1)
+                        frame = 0
+                    }
+                }
+                frame == 0 -> {
+                    beginPull()
+                    downTime = SystemClock.uptimeMillis()
+                    val height = srl_duplex_stress.height
+                    startY = if (pullTop) height * .3f else height * .7f
+                    inject(MotionEvent.ACTION_DOWN, startY)
+                    frame = 1
+                }
+                frame <= PULL_FRAMES -> {
+                    val distance = PULL_DISTANCE_DP * resources.displayMetrics.density
+                    val offset = distance * frame / PULL_FRAMES
+                    inject(MotionEvent.ACTION_MOVE, if (pullTop) startY + offset else startY - offset)
+                    frame++
+                }
+                else -> {
+                    val distance = PULL_DISTANCE_DP * resources.displayMetrics.density
+                    inject(MotionEvent.ACTION_UP, if (pullTop) startY + distance else startY - distance)
+                    pullTop = !pullTop
+                    frame = -1
+                }
+            }
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+
+        private fun inject(action: Int, y: Float) {
+            val event = MotionEvent.obtain(
+                downTime, SystemClock.uptimeMillis(), action,
+                srl_duplex_stress.width / 2f, y, 0
+            )
+            srl_duplex_stress.dispatchTouchEvent(event)
+            event.recycle()
+        }
+    }
+}
@@ -13,5 +13,11 @@ class MainActivity : AppCompatActivity() {
         btn_go_duplex_swipe.setOnClickListener {
             startActivity<DuplexSwipeActivity>()
         }
+        btn_go_duplex_swipe_stress.setOnClickListener {
+            startActivity<DuplexSwipeStressActivity>()
+        }
+        btn_go_duplex_swipe_app_bar.setOnClickListener {
+            startActivity<DuplexSwipeAppBarActivity>()
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.damiao.diy.diyapp
+
+import android.content.Context
+import android.util.AttributeSet
+import android.view.View
+import com.damiao.diy.view.swipe.DuplexSwipeRefreshLayout
+
+/**
+ * 统计收到的嵌套滑动回调次数的DuplexSwipeRefreshLayout，供DuplexSwipeAppBarActivity逐帧读取并清零
+ */
+class NestedScrollCountingLayout @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null
+) : DuplexSwipeRefreshLayout(context, attrs) {
+
+    var preScrollCalls = 0
+    var scrollCalls = 0
+
+    override fun onNestedPreScroll(target: View, dx: Int, dy: Int, consumed: IntArray, type: Int) {
+        preScrollCalls++
+        super.onNestedPreScroll(target, dx, dy, consumed, type)
+    }
+
+    override fun onNestedScroll(
+        target: View, dxConsumed: Int, dyConsumed: Int,
+        dxUnconsumed: Int, dyUnconsumed: Int, type: Int, consumed: IntArray
+    ) {
+        scrollCalls++
+        super.onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type, consumed)
+    }
+}
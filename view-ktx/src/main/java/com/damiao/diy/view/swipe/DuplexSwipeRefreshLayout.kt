@@ -0,0 +1,28 @@
+package com.damiao.diy.view.swipe
+
+/**
+ * 添加一个拖动状态监听，返回添加的监听，用于之后调用[DuplexSwipeRefreshLayout.removeOnPullStateListener]移除
+ */
+inline fun DuplexSwipeRefreshLayout.doOnPullStateChanged(
+    crossinline action: (edge: Int, state: Int, fraction: Float, offset: Int) -> Unit
+): DuplexSwipeRefreshLayout.OnPullStateListener {
+    val listener = DuplexSwipeRefreshLayout.OnPullStateListener { edge, state, fraction, offset ->
+        action(edge, state, fraction, offset)
+    }
+    addOnPullStateListener(listener)
+    return listener
+}
+
+/**
+ * 某一端是否正在刷新
+ *
+ * @param edge [DuplexSwipeRefreshLayout.EDGE_TOP]或[DuplexSwipeRefreshLayout.EDGE_BOTTOM]
+ */
+fun DuplexSwipeRefreshLayout.isRefreshing(edge: Int): Boolean =
+    if (edge == DuplexSwipeRefreshLayout.EDGE_TOP) isTopRefreshing else isBottomRefreshing
+
+/**
+ * 任意一端正在刷新
+ */
+val DuplexSwipeRefreshLayout.isAnyRefreshing: Boolean
+    get() = isTopRefreshing || isBottomRefreshing
@@ -0,0 +1,87 @@
+package com.damiao.diy.view.swipe;
+
+import android.graphics.Canvas;
+import android.widget.EdgeEffect;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * RecyclerView的越界效果工厂，与DuplexSwipeRefreshLayout配合使用。
+ * <p>
+ * 列表滚动到顶部或底部后继续拖动时，未消费的距离通过嵌套滑动交给DuplexSwipeRefreshLayout移动指示球，
+ * 但RecyclerView仍然会用同一段距离拉动自己的EdgeEffect，同一个边缘同时绘制指示球和越界光晕，
+ * 每一帧都多一次绘制。这里创建的EdgeEffect在对应一端的指示球活动期间（拖动、刷新、回弹）不响应拉动，
+ * 也不绘制，指示球收起后恢复正常；左右两端不受影响。
+ *
+ * <pre>
+ * recyclerView.setEdgeEffectFactory(new DuplexEdgeEffectFactory(swipeRefreshLayout));
+ * </pre>
+ */
+public class DuplexEdgeEffectFactory extends RecyclerView.EdgeEffectFactory {
+    private final DuplexSwipeRefreshLayout mLayout;
+
+    public DuplexEdgeEffectFactory(@NonNull DuplexSwipeRefreshLayout layout) {
+        mLayout = layout;
+    }
+
+    @NonNull
+    @Override
+    protected EdgeEffect createEdgeEffect(@NonNull RecyclerView view, int direction) {
+        if (direction == DIRECTION_TOP) {
+            return new SuppressibleEdgeEffect(view, DuplexSwipeRefreshLayout.EDGE_TOP);
+        }
+        if (direction == DIRECTION_BOTTOM) {
+            return new SuppressibleEdgeEffect(view, DuplexSwipeRefreshLayout.EDGE_BOTTOM);
+        }
+        return super.createEdgeEffect(view, direction);
+    }
+
+    /**
+     * 指示球活动期间不响应拉动、不绘制的EdgeEffect
+     */
+    private class SuppressibleEdgeEffect extends EdgeEffect {
+        private final int mEdge;
+
+        SuppressibleEdgeEffect(RecyclerView view, int edge) {
+            super(view.getContext());
+            mEdge = edge;
+        }
+
+        private boolean isSuppressed() {
+            if (mLayout.isEdgeActive(mEdge)) {
+                //指示球开始活动时可能还有未消失的光晕，直接结束
+                finish();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onPull(float deltaDistance) {
+            if (!isSuppressed()) {
+                super.onPull(deltaDistance);
+            }
+        }
+
+        @Override
+        public void onPull(float deltaDistance, float displacement) {
+            if (!isSuppressed()) {
+                super.onPull(deltaDistance, displacement);
+            }
+        }
+
+        @Override
+        public void onAbsorb(int velocity) {
+            if (!isSuppressed()) {
+                super.onAbsorb(velocity);
+            }
+        }
+
+        @Override
+        public boolean draw(Canvas canvas) {
+            //返回false，RecyclerView不会因为越界效果再请求下一帧重绘
+            return !isSuppressed() && super.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.damiao.diy.view.swipe;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * RecyclerView的{@link RefreshAnchor}实现。
+ * <p>
+ * 插入数据后再调用scrollToPosition会多一次布局，并且列表会跳动一下。这里在发出插入通知前记录第一个可见行的位置和偏移，
+ * 通知后立即用scrollToPositionWithOffset把这一行放回原位，两者都只是请求布局，会在下一帧的同一次布局中完成。
+ * 支持LinearLayoutManager（包括GridLayoutManager）的正向和反向布局：反向布局（聊天列表）中视觉顶部对应数据的末尾。
+ * 其他LayoutManager只发出插入通知，不做锚定。
+ */
+public class RecyclerViewRefreshAnchor implements RefreshAnchor {
+    private final RecyclerView mRecyclerView;
+
+    public RecyclerViewRefreshAnchor(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    @Override
+    public void onTopItemsInserted(int count) {
+        //正向布局时视觉顶部是数据的开头，反向布局时是数据的末尾
+        insert(count, !isReverseLayout());
+    }
+
+    @Override
+    public void onBottomItemsInserted(int count) {
+        insert(count, isReverseLayout());
+    }
+
+    /**
+     * @param atStart 是否插入在数据的开头
+     */
+    private void insert(int count, boolean atStart) {
+        final RecyclerView.Adapter<?> adapter = mRecyclerView.getAdapter();
+        if (adapter == null || count <= 0) {
+            return;
+        }
+        final int positionStart = atStart ? 0 : adapter.getItemCount() - count;
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            adapter.notifyItemRangeInserted(positionStart, count);
+            return;
+        }
+        final LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        final int anchorPosition = linearLayoutManager.findFirstVisibleItemPosition();
+        final View anchorView = anchorPosition == RecyclerView.NO_POSITION
+                ? null : linearLayoutManager.findViewByPosition(anchorPosition);
+        if (anchorView == null) {
+            adapter.notifyItemRangeInserted(positionStart, count);
+            return;
+        }
+        final int offset = getAnchorOffset(linearLayoutManager, anchorView);
+        adapter.notifyItemRangeInserted(positionStart, count);
+        //插入在锚点之前，锚点的位置需要后移
+        final int newPosition = positionStart <= anchorPosition ? anchorPosition + count : anchorPosition;
+        linearLayoutManager.scrollToPositionWithOffset(newPosition, offset);
+    }
+
+    /**
+     * 与scrollToPositionWithOffset的offset含义一致：正向布局为锚点顶部（含margin）到列表内容区域顶部的距离，
+     * 反向布局为锚点底部（含margin）到列表内容区域底部的距离
+     */
+    private int getAnchorOffset(LinearLayoutManager layoutManager, View anchorView) {
+        final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) anchorView.getLayoutParams();
+        if (layoutManager.getReverseLayout()) {
+            final int end = mRecyclerView.getHeight() - mRecyclerView.getPaddingBottom();
+            return end - (layoutManager.getDecoratedBottom(anchorView) + lp.bottomMargin);
+        }
+        return layoutManager.getDecoratedTop(anchorView) - lp.topMargin - mRecyclerView.getPaddingTop();
+    }
+
+    private boolean isReverseLayout() {
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        return layoutManager instanceof LinearLayoutManager
+                && ((LinearLayoutManager) layoutManager).getReverseLayout();
+    }
+}
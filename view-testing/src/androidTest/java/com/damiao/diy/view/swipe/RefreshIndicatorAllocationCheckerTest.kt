@@ -0,0 +1,66 @@
+package com.damiao.diy.view.swipe
+
+import android.graphics.Color
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.Drawable
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class RefreshIndicatorAllocationCheckerTest {
+
+    private open class FakeIndicator : RefreshIndicator {
+        private val drawable = ColorDrawable(Color.GRAY)
+        private var alpha = 0
+        var pull = 0f
+
+        override fun getDrawable(): Drawable = drawable
+        override fun setColorSchemeColors(vararg colors: Int) {}
+        override fun setSize(size: Int) {}
+        override fun setAlpha(alpha: Int) {
+            this.alpha = alpha
+        }
+
+        override fun getAlpha(): Int = alpha
+        override fun onPull(dragPercent: Float, tensionPercent: Float) {
+            pull = dragPercent + tensionPercent
+        }
+
+        override fun onPullCancelled() {}
+        override fun onSettle(progress: Float) {
+            pull = progress
+        }
+
+        override fun onRefreshStart() {}
+        override fun onRefreshStop() {}
+    }
+
+    private class AllocatingIndicator : FakeIndicator() {
+        val frames = ArrayList<FloatArray>()
+
+        override fun onPull(dragPercent: Float, tensionPercent: Float) {
+            super.onPull(dragPercent, tensionPercent)
+            frames.add(floatArrayOf(dragPercent, tensionPercent))
+        }
+    }
+
+    @Test
+    fun allocationFreeIndicator_passes() {
+        RefreshIndicatorAllocationChecker.assertNoAllocations(FakeIndicator())
+    }
+
+    @Test(expected = AssertionError::class)
+    fun allocatingIndicator_isDetected() {
+        RefreshIndicatorAllocationChecker.assertNoAllocations(AllocatingIndicator())
+    }
+
+    @Test
+    fun defaultIndicator_updatesAndDrawsWithoutAllocating() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        val indicator = CircularRefreshIndicator(context)
+        indicator.setColorSchemeColors(Color.BLACK, Color.BLUE)
+        RefreshIndicatorAllocationChecker.assertNoAllocations(indicator)
+    }
+}
@@ -0,0 +1,91 @@
+package com.damiao.diy.view.swipe;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Debug;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 检查{@link RefreshIndicator}每帧调用的方法以及Drawable的绘制过程是否分配了对象，在设备上的仪器测试中使用，
+ * 自定义指示器的模块通过 androidTestImplementation project(':view-testing') 引入。
+ * <p>
+ * 模拟若干次完整的拖动、回弹、透明度变化过程，每帧都把指示器的Drawable绘制到一个Bitmap上，
+ * 通过{@link Debug#getThreadAllocCount()}统计当前线程在这期间分配的对象个数。
+ */
+public final class RefreshIndicatorAllocationChecker {
+    //一次拖动过程模拟的帧数
+    private static final int FRAMES_PER_PULL = 60;
+    //预热的拖动次数，让JIT编译以及指示器内部的懒加载先完成
+    private static final int WARM_UP_PULLS = 20;
+    //正式统计的拖动次数
+    private static final int MEASURED_PULLS = 50;
+    //绘制用的Bitmap边长，与默认指示球的大小相近
+    private static final int CANVAS_SIZE = 120;
+
+    private RefreshIndicatorAllocationChecker() {
+    }
+
+    /**
+     * 断言指示器每帧调用的方法以及绘制过程没有分配对象
+     *
+     * @throws AssertionError 统计到了对象分配
+     */
+    public static void assertNoAllocations(@NonNull RefreshIndicator indicator) {
+        final long allocated = measureAllocations(indicator);
+        if (allocated > 0) {
+            throw new AssertionError(indicator.getClass().getName() + " allocated " + allocated
+                    + " objects in " + MEASURED_PULLS * FRAMES_PER_PULL + " frames");
+        }
+    }
+
+    /**
+     * @return 模拟拖动过程中指示器分配的对象个数（已扣除统计本身的开销）
+     */
+    //Debug的分配统计接口已经废弃，但仍是设备上统计单个线程分配次数的唯一方式
+    @SuppressWarnings("deprecation")
+    public static long measureAllocations(@NonNull RefreshIndicator indicator) {
+        final Bitmap bitmap = Bitmap.createBitmap(CANVAS_SIZE, CANVAS_SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        final Drawable drawable = indicator.getDrawable();
+        drawable.setBounds(0, 0, CANVAS_SIZE, CANVAS_SIZE);
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < WARM_UP_PULLS; i++) {
+                simulatePull(indicator, drawable, canvas);
+            }
+            //空跑一次，扣除统计本身带来的分配
+            Debug.resetThreadAllocCount();
+            final int baseline = Debug.getThreadAllocCount();
+
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < MEASURED_PULLS; i++) {
+                simulatePull(indicator, drawable, canvas);
+            }
+            return Math.max(0, Debug.getThreadAllocCount() - baseline);
+        } finally {
+            Debug.stopAllocCounting();
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 模拟一次拖动：透明度从半透明到完全不透明，拖过刷新阈值后继续拉扯，松手后回弹到悬垂位置，每帧绘制一次
+     */
+    private static void simulatePull(RefreshIndicator indicator, Drawable drawable, Canvas canvas) {
+        for (int frame = 0; frame <= FRAMES_PER_PULL; frame++) {
+            final float fraction = (float) frame / FRAMES_PER_PULL;
+            indicator.setAlpha((int) (76 + (255 - 76) * fraction));
+            indicator.getAlpha();
+            indicator.onPull(Math.min(1f, fraction * 2), Math.max(0f, fraction - .5f));
+            drawable.draw(canvas);
+        }
+        for (int frame = 0; frame <= FRAMES_PER_PULL; frame++) {
+            indicator.onSettle((float) frame / FRAMES_PER_PULL);
+            drawable.draw(canvas);
+        }
+        indicator.onPullCancelled();
+        drawable.draw(canvas);
+    }
+}
@@ -0,0 +1,90 @@
+package com.damiao.diy.view.swipe
+
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * 在ManualFrameClock上逐帧跑完整的顶部刷新流程：拖动、松手回弹到悬垂位置、刷新中、刷新结束收起
+ */
+@RunWith(AndroidJUnit4::class)
+class RefreshCycleTest {
+
+    companion object {
+        private const val WIDTH = 1080
+        private const val HEIGHT = 1920
+        private const val MAX_FRAMES = 1000
+    }
+
+    private lateinit var layout: DuplexSwipeRefreshLayout
+    private val clock = ManualFrameClock()
+    private var downTime = 0L
+
+    private fun setUpLayout() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        layout = DuplexSwipeRefreshLayout(context)
+        layout.addView(View(context))
+        layout.setFrameClock(clock)
+        //固定动画档位，不受设备省电模式、温控的影响
+        layout.setAnimationProfile(DuplexSwipeRefreshLayout.ANIMATION_PROFILE_FULL)
+        layout.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        )
+        layout.layout(0, 0, WIDTH, HEIGHT)
+    }
+
+    private fun touch(action: Int, y: Float) {
+        val event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, WIDTH / 2f, y, 0)
+        layout.dispatchTouchEvent(event)
+        event.recycle()
+    }
+
+    @Test
+    fun topRefresh_runsFullCycleOnManualClock() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync {
+            setUpLayout()
+            var refreshes = 0
+            layout.setOnTopRefreshListener { refreshes++ }
+            val edge = DuplexSwipeRefreshLayout.EDGE_TOP
+
+            //拖动超过刷新阈值
+            downTime = SystemClock.uptimeMillis()
+            touch(MotionEvent.ACTION_DOWN, 100f)
+            for (step in 1..20) {
+                touch(MotionEvent.ACTION_MOVE, 100f + step * 40f)
+                clock.step()
+            }
+            assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_ARMED, layout.getPullState(edge))
+            assertTrue(layout.getPullOffset(edge) > 0)
+
+            //松手后回弹到悬垂位置
+            touch(MotionEvent.ACTION_UP, 900f)
+            assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_SETTLING, layout.getPullState(edge))
+            assertEquals(0, refreshes)
+            assertTrue(clock.runUntilIdle(MAX_FRAMES) > 0)
+
+            //回弹结束后进入刷新状态并回调onRefresh
+            assertTrue(layout.isTopRefreshing)
+            assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_REFRESHING, layout.getPullState(edge))
+            assertEquals(1, refreshes)
+
+            //刷新结束，收起指示球
+            layout.isTopRefreshing = false
+            assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_COLLAPSING, layout.getPullState(edge))
+            assertTrue(clock.runUntilIdle(MAX_FRAMES) > 0)
+
+            assertFalse(layout.isTopRefreshing)
+            assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_IDLE, layout.getPullState(edge))
+            assertFalse(clock.hasPendingCallbacks())
+            assertEquals(1, refreshes)
+        }
+    }
+}
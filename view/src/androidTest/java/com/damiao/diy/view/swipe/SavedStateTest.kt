@@ -0,0 +1,84 @@
+package com.damiao.diy.view.swipe
+
+import android.os.Parcel
+import android.os.Parcelable
+import android.util.SparseArray
+import android.view.AbsSavedState
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class SavedStateTest {
+
+    private fun <T : Parcelable> roundTrip(state: T): Parcelable? {
+        val parcel = Parcel.obtain()
+        try {
+            parcel.writeParcelable(state, 0)
+            parcel.setDataPosition(0)
+            return parcel.readParcelable(javaClass.classLoader)
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    @Test
+    fun savedState_survivesParcel() {
+        val state = DuplexSwipeRefreshLayout.SavedState(AbsSavedState.EMPTY_STATE)
+        state.mTopRefreshing = true
+        state.mBottomRefreshing = false
+        state.mTotalDragDistance = 123.5f
+        state.mTopSpinnerOffsetEnd = 64
+        state.mBottomSpinnerOffsetEnd = 72
+        state.mCustomSlingshotDistance = 96
+
+        val restored = roundTrip(state) as DuplexSwipeRefreshLayout.SavedState
+
+        assertTrue(restored.mTopRefreshing)
+        assertFalse(restored.mBottomRefreshing)
+        assertEquals(123.5f, restored.mTotalDragDistance, 0f)
+        assertEquals(64, restored.mTopSpinnerOffsetEnd)
+        assertEquals(72, restored.mBottomSpinnerOffsetEnd)
+        assertEquals(96, restored.mCustomSlingshotDistance)
+    }
+
+    @Test
+    fun layout_restoresRefreshingAndThresholds() {
+        val instrumentation = InstrumentationRegistry.getInstrumentation()
+        instrumentation.runOnMainSync {
+            val context = instrumentation.targetContext
+            val source = DuplexSwipeRefreshLayout(context)
+            source.id = 1
+            source.setDistanceToTriggerSync(200)
+            source.setTopProgressViewEndTarget(64)
+            source.setBottomProgressViewEndTarget(72)
+            source.setSlingshotDistance(150)
+            source.isBottomRefreshing = true
+
+            val container = SparseArray<Parcelable>()
+            source.saveHierarchyState(container)
+            container.put(1, roundTrip(container.get(1)))
+
+            val target = DuplexSwipeRefreshLayout(context)
+            target.id = 1
+            target.restoreHierarchyState(container)
+
+            assertTrue(target.isBottomRefreshing)
+            assertFalse(target.isTopRefreshing)
+            assertEquals(64, target.progressViewEndOffset)
+
+            //拖动距离、底部阈值和拉伸距离没有公开的getter，再保存一次读出恢复后的值
+            val resaved = SparseArray<Parcelable>()
+            target.saveHierarchyState(resaved)
+            val state = resaved.get(1) as DuplexSwipeRefreshLayout.SavedState
+            assertEquals(200f, state.mTotalDragDistance, 0f)
+            assertEquals(64, state.mTopSpinnerOffsetEnd)
+            assertEquals(72, state.mBottomSpinnerOffsetEnd)
+            assertEquals(150, state.mCustomSlingshotDistance)
+        }
+    }
+}
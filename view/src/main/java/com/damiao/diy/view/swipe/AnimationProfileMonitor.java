@@ -0,0 +1,125 @@
+package com.damiao.diy.view.swipe;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 监听省电模式、系统动画时长缩放（开发者选项中的“动画程序时长缩放”）以及设备温控状态，
+ * 据此决定DuplexSwipeRefreshLayout使用的动画档位，见{@link #resolveProfile(float, boolean, int)}。
+ * 所有系统监听在{@link #start()}时注册、{@link #stop()}时注销，只持有ApplicationContext
+ */
+final class AnimationProfileMonitor {
+
+    interface Listener {
+        /**
+         * 省电模式、动画时长缩放或温控状态发生了变化，在主线程回调
+         */
+        void onAnimationProfileChanged();
+    }
+
+    private final Context mContext;
+    private final Listener mListener;
+    private final PowerManager mPowerManager;
+    private boolean mStarted;
+
+    private final BroadcastReceiver mPowerSaveReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mListener.onAnimationProfileChanged();
+        }
+    };
+
+    private final ContentObserver mDurationScaleObserver =
+            new ContentObserver(new Handler(Looper.getMainLooper())) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    mListener.onAnimationProfileChanged();
+                }
+            };
+
+    //温控监听只在API 29及以上可用，按需创建
+    private PowerManager.OnThermalStatusChangedListener mThermalListener;
+
+    AnimationProfileMonitor(@NonNull Context context, @NonNull Listener listener) {
+        mContext = context.getApplicationContext();
+        mListener = listener;
+        mPowerManager = (PowerManager) mContext.getSystemService(Context.POWER_SERVICE);
+    }
+
+    void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        mContext.registerReceiver(mPowerSaveReceiver,
+                new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        mContext.getContentResolver().registerContentObserver(
+                Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE), false,
+                mDurationScaleObserver);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mPowerManager != null) {
+            if (mThermalListener == null) {
+                mThermalListener = new PowerManager.OnThermalStatusChangedListener() {
+                    @Override
+                    public void onThermalStatusChanged(int status) {
+                        mListener.onAnimationProfileChanged();
+                    }
+                };
+            }
+            mPowerManager.addThermalStatusListener(mThermalListener);
+        }
+    }
+
+    void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        mContext.unregisterReceiver(mPowerSaveReceiver);
+        mContext.getContentResolver().unregisterContentObserver(mDurationScaleObserver);
+        if (mThermalListener != null) {
+            mPowerManager.removeThermalStatusListener(mThermalListener);
+        }
+    }
+
+    /**
+     * @return 系统的动画时长缩放，0表示关闭了动画
+     */
+    float getDurationScale() {
+        return Settings.Global.getFloat(mContext.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    /**
+     * @return 根据当前系统状态决定的动画档位
+     */
+    int getProfile() {
+        final boolean powerSave = mPowerManager != null && mPowerManager.isPowerSaveMode();
+        final int thermalStatus = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mPowerManager != null
+                ? mPowerManager.getCurrentThermalStatus() : PowerManager.THERMAL_STATUS_NONE;
+        return resolveProfile(getDurationScale(), powerSave, thermalStatus);
+    }
+
+    /**
+     * 动画时长缩放为0时关闭动画；省电模式或温控达到中度（此时系统已经开始限制CPU/GPU频率）时使用精简档位；
+     * 其余情况使用完整档位
+     */
+    static int resolveProfile(float durationScale, boolean powerSave, int thermalStatus) {
+        if (durationScale == 0) {
+            return DuplexSwipeRefreshLayout.ANIMATION_PROFILE_OFF;
+        }
+        if (powerSave || thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+            return DuplexSwipeRefreshLayout.ANIMATION_PROFILE_REDUCED;
+        }
+        return DuplexSwipeRefreshLayout.ANIMATION_PROFILE_FULL;
+    }
+}
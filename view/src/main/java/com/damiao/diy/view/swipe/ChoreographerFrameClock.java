@@ -0,0 +1,43 @@
+package com.damiao.diy.view.swipe;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 默认的帧时钟，所有回调合并成一个Choreographer回调，在每个vsync执行，只能在主线程使用
+ */
+final class ChoreographerFrameClock implements FrameClock, Choreographer.FrameCallback {
+    private final FrameCallbackList mCallbacks = new FrameCallbackList();
+    //是否已经向Choreographer注册了下一帧的回调
+    private boolean mScheduled;
+
+    @Override
+    public void postFrameCallback(@NonNull FrameCallback callback) {
+        mCallbacks.add(callback);
+        if (!mScheduled) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(@NonNull FrameCallback callback) {
+        mCallbacks.remove(callback);
+        if (mScheduled && mCallbacks.isEmpty()) {
+            //没有等待执行的回调了，同时从Choreographer中移除，不再等待下一帧
+            mScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mCallbacks.dispatch(frameTimeNanos);
+        if (!mCallbacks.isEmpty() && !mScheduled) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
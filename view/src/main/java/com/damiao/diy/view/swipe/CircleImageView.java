@@ -6,20 +6,21 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.RadialGradient;
 import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.OvalShape;
+import android.os.SystemClock;
 import android.view.View;
-import android.view.animation.Animation;
+import android.widget.ImageView;
 
+import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.core.view.ViewCompat;
 
 /**
- * Private class created to work around issues with AnimationListeners being
- * called before the animation is actually complete and support shadows on older
- * platforms.
+ * Private class created to support shadows on older platforms.
  */
-class CircleImageView extends androidx.appcompat.widget.AppCompatImageView {
+class CircleImageView extends ImageView {
 
     private static final int KEY_SHADOW_COLOR = 0x1E000000;
     private static final int FILL_SHADOW_COLOR = 0x3D000000;
@@ -29,8 +30,11 @@ class CircleImageView extends androidx.appcompat.widget.AppCompatImageView {
     private static final float SHADOW_RADIUS = 3.5f;
     private static final int SHADOW_ELEVATION = 4;
 
-    private Animation.AnimationListener mListener;
     int mShadowRadius;
+    //内部Drawable两次重绘之间的最小间隔，0表示不限制
+    private long mMinInvalidateIntervalMillis;
+    //内部Drawable上一次重绘的时间
+    private long mLastInvalidateMillis;
 
     CircleImageView(Context context, int color) {
         super(context);
@@ -71,24 +75,26 @@ class CircleImageView extends androidx.appcompat.widget.AppCompatImageView {
         }
     }
 
-    public void setAnimationListener(Animation.AnimationListener listener) {
-        mListener = listener;
-    }
-
-    @Override
-    public void onAnimationStart() {
-        super.onAnimationStart();
-        if (mListener != null) {
-            mListener.onAnimationStart(getAnimation());
-        }
+    /**
+     * 限制内部Drawable的重绘频率，用于降低刷新中旋转动画的帧率。间隔内的重绘请求直接丢弃，
+     * 只适用于持续运行的动画，动画的下一帧会再次请求重绘
+     *
+     * @param intervalMillis 两次重绘之间的最小间隔，0表示不限制
+     */
+    void setMinInvalidateInterval(long intervalMillis) {
+        mMinInvalidateIntervalMillis = intervalMillis;
     }
 
     @Override
-    public void onAnimationEnd() {
-        super.onAnimationEnd();
-        if (mListener != null) {
-            mListener.onAnimationEnd(getAnimation());
+    public void invalidateDrawable(@NonNull Drawable dr) {
+        if (mMinInvalidateIntervalMillis > 0 && dr == getDrawable()) {
+            final long now = SystemClock.uptimeMillis();
+            if (now - mLastInvalidateMillis < mMinInvalidateIntervalMillis) {
+                return;
+            }
+            mLastInvalidateMillis = now;
         }
+        super.invalidateDrawable(dr);
     }
 
     /**
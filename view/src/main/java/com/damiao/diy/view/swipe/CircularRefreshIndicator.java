@@ -0,0 +1,152 @@
+package com.damiao.diy.view.swipe;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.AnimatedVectorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.swiperefreshlayout.widget.CircularProgressDrawable;
+
+import com.damiao.diy.view.R;
+
+/**
+ * 默认的刷新指示器，与原生SwipeRefreshLayout一致，拖动时由CircularProgressDrawable绘制带箭头的圆弧，
+ * 刷新中不停旋转。可选开启RenderThread旋转圆环，见{@link #setRenderThreadRingEnabled(boolean)}
+ */
+public class CircularRefreshIndicator implements RefreshIndicator {
+    //指示球内部的进度角度，默认值为80%，若设置为1，则指示球可以随着滑动合成一个完整的圆
+    private static final float MAX_PROGRESS_ANGLE = .8f;
+
+    private final Context mContext;
+    //拖动过程中以及未开启RenderThread圆环时刷新中展示的Drawable
+    private final CircularProgressDrawable mProgress;
+    //刷新中展示的RenderThread旋转圆环，按需创建
+    private AnimatedVectorDrawable mRenderThreadRing;
+    //是否使用RenderThread驱动的旋转圆环展示刷新中的状态
+    private boolean mRenderThreadRingEnabled;
+    //刷新中是否正在展示RenderThread旋转圆环
+    private boolean mShowingRenderThreadRing;
+    //指示器内部旋转条的颜色
+    private int[] mColorSchemeColors;
+
+    public CircularRefreshIndicator(@NonNull Context context) {
+        mContext = context;
+        mProgress = new CircularProgressDrawable(context);
+        mProgress.setStyle(CircularProgressDrawable.DEFAULT);
+    }
+
+    /**
+     * 设置刷新中是否使用RenderThread驱动的旋转圆环。CircularProgressDrawable的旋转动画运行在主线程，
+     * onRefresh回调或列表刷新阻塞主线程时指示球会卡住；开启后，指示球到达悬垂位置开始旋转时会切换为
+     * AnimatedVectorDrawable圆环，在API 25及以上由RenderThread驱动，刷新期间主线程每帧不再有任何工作。
+     * 低于API 25的设备上AnimatedVectorDrawable仍在主线程运行，没有收益，因此继续使用CircularProgressDrawable。
+     * 拖动过程中的箭头和进度变化仍由CircularProgressDrawable绘制。
+     */
+    public void setRenderThreadRingEnabled(boolean enabled) {
+        mRenderThreadRingEnabled = enabled;
+    }
+
+    public boolean isRenderThreadRingEnabled() {
+        return mRenderThreadRingEnabled;
+    }
+
+    @NonNull
+    @Override
+    public Drawable getDrawable() {
+        return mShowingRenderThreadRing ? mRenderThreadRing : mProgress;
+    }
+
+    @Override
+    public void setColorSchemeColors(@ColorInt int... colors) {
+        mProgress.setColorSchemeColors(colors);
+        mColorSchemeColors = colors;
+        if (mRenderThreadRing != null) {
+            mRenderThreadRing.setTint(getRenderThreadRingColor());
+        }
+    }
+
+    @Override
+    public void setSize(int size) {
+        mProgress.setStyle(size);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mProgress.setAlpha(alpha);
+    }
+
+    @Override
+    public int getAlpha() {
+        return mProgress.getAlpha();
+    }
+
+    @Override
+    public void onPull(float dragPercent, float tensionPercent) {
+        mProgress.setArrowEnabled(true);
+        float adjustedPercent = (float) Math.max(dragPercent - .4, 0) * 5 / 3;
+        float strokeStart = adjustedPercent * .8f;
+        mProgress.setStartEndTrim(0f, Math.min(MAX_PROGRESS_ANGLE, strokeStart));
+        mProgress.setArrowScale(Math.min(1f, adjustedPercent));
+
+        float rotation = (-0.25f + .4f * adjustedPercent + tensionPercent * 2) * .5f;
+        mProgress.setProgressRotation(rotation);
+    }
+
+    @Override
+    public void onPullCancelled() {
+        mProgress.setStartEndTrim(0f, 0f);
+        mProgress.setArrowEnabled(false);
+    }
+
+    @Override
+    public void onSettle(float progress) {
+        mProgress.setArrowScale(1 - progress);
+    }
+
+    @Override
+    public void onRefreshStart() {
+        if (useRenderThreadRing()) {
+            if (mRenderThreadRing == null) {
+                mRenderThreadRing = createRenderThreadRing();
+            }
+            mShowingRenderThreadRing = true;
+            mRenderThreadRing.start();
+        } else {
+            mProgress.start();
+        }
+    }
+
+    @Override
+    public void onRefreshStop() {
+        if (mRenderThreadRing != null) {
+            mRenderThreadRing.stop();
+        }
+        mProgress.stop();
+        mShowingRenderThreadRing = false;
+    }
+
+    /**
+     * 是否可以使用RenderThread旋转圆环
+     */
+    private boolean useRenderThreadRing() {
+        return mRenderThreadRingEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1;
+    }
+
+    private AnimatedVectorDrawable createRenderThreadRing() {
+        final AnimatedVectorDrawable ring = (AnimatedVectorDrawable) mContext
+                .getDrawable(R.drawable.duplex_refresh_ring_animated).mutate();
+        ring.setTint(getRenderThreadRingColor());
+        return ring;
+    }
+
+    /**
+     * RenderThread旋转圆环只有一种颜色，取颜色数组的第一个，与CircularProgressDrawable默认的黑色保持一致
+     */
+    private int getRenderThreadRingColor() {
+        return mColorSchemeColors != null && mColorSchemeColors.length > 0
+                ? mColorSchemeColors[0] : Color.BLACK;
+    }
+}
@@ -0,0 +1,132 @@
+package com.damiao.diy.view.swipe;
+
+import android.animation.TimeInterpolator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 由{@link FrameClock}逐帧推进的指示球动画，替代挂在View上的Animation。与Animation一样在第一帧确定开始时间，
+ * 每帧回调{@link #applyTransformation(float)}，结束后回调监听；不依赖View的绘制，因此可以在JVM中手动推进。
+ * 监听只对设置后的一次执行有效：动画结束、取消时释放监听和帧时钟，重新开始前需要再次设置监听
+ */
+abstract class ClockAnimation implements FrameClock.FrameCallback {
+
+    interface Listener {
+        void onAnimationEnd();
+    }
+
+    private long mDurationMillis;
+    //时长的缩放比例，与系统的动画时长缩放一致，0表示第一帧就结束
+    private float mDurationScale = 1f;
+    //为null时与Animation的默认值一致，使用先加速后减速的插值
+    private TimeInterpolator mInterpolator;
+    private Listener mListener;
+    private FrameClock mClock;
+    //第一帧的时间，-1表示还没有执行第一帧
+    private long mStartTimeNanos = -1;
+    private boolean mRunning;
+
+    void setDuration(long durationMillis) {
+        mDurationMillis = durationMillis;
+    }
+
+    void setDurationScale(float scale) {
+        mDurationScale = scale;
+    }
+
+    void setInterpolator(@Nullable TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 开始动画，若动画正在执行则从头开始
+     */
+    void start(@NonNull FrameClock clock) {
+        cancel();
+        mClock = clock;
+        mStartTimeNanos = -1;
+        mRunning = true;
+        clock.postFrameCallback(this);
+    }
+
+    /**
+     * 取消动画，不会回调监听，与View.clearAnimation()一致
+     */
+    void cancel() {
+        if (mRunning) {
+            mRunning = false;
+            mClock.removeFrameCallback(this);
+        }
+        release();
+    }
+
+    /**
+     * 不经过帧时钟，直接应用结束状态并同步回调监听，用于关闭动画的场景
+     */
+    void finish() {
+        final Listener listener = mListener;
+        cancel();
+        applyTransformation(interpolate(1f));
+        if (listener != null) {
+            listener.onAnimationEnd();
+        }
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mStartTimeNanos < 0) {
+            mStartTimeNanos = frameTimeNanos;
+        }
+        final float duration = mDurationMillis * mDurationScale;
+        final float fraction = duration > 0
+                ? Math.min(1f, (frameTimeNanos - mStartTimeNanos) / (duration * 1_000_000f))
+                : 1f;
+        applyTransformation(interpolate(fraction));
+        if (fraction < 1f) {
+            mClock.postFrameCallback(this);
+        } else {
+            mRunning = false;
+            //先释放再回调，监听中可以重新开始这个动画
+            final Listener listener = mListener;
+            release();
+            if (listener != null) {
+                listener.onAnimationEnd();
+            }
+        }
+    }
+
+    /**
+     * 释放对监听和帧时钟的引用，动画对象被长期持有时不会连带持有外部对象
+     */
+    private void release() {
+        mListener = null;
+        mClock = null;
+    }
+
+    private float interpolate(float fraction) {
+        if (mInterpolator != null) {
+            return mInterpolator.getInterpolation(fraction);
+        }
+        //AccelerateDecelerateInterpolator
+        return (float) (Math.cos((fraction + 1) * Math.PI) / 2.0f) + 0.5f;
+    }
+
+    /**
+     * 每帧回调
+     *
+     * @param interpolatedTime 插值后的进度，0-1
+     */
+    protected abstract void applyTransformation(float interpolatedTime);
+}
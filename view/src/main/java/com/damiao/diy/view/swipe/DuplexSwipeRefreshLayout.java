@@ -2,17 +2,24 @@ package com.damiao.diy.view.swipe;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
-import android.view.animation.Animation.AnimationListener;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.view.animation.AnimationUtils;
 import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Transformation;
 import android.widget.AbsListView;
 import android.widget.ListView;
 
@@ -24,24 +31,64 @@ import androidx.annotation.Px;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.content.ContextCompat;
 import androidx.core.view.NestedScrollingChild;
+import androidx.core.view.NestedScrollingChild2;
+import androidx.core.view.NestedScrollingChild3;
 import androidx.core.view.NestedScrollingChildHelper;
 import androidx.core.view.NestedScrollingParent;
+import androidx.core.view.NestedScrollingParent2;
+import androidx.core.view.NestedScrollingParent3;
 import androidx.core.view.NestedScrollingParentHelper;
 import androidx.core.view.ViewCompat;
 import androidx.core.widget.ListViewCompat;
 import androidx.swiperefreshlayout.widget.CircularProgressDrawable;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * 改造原先V4包中的SwipeRefreshLayout，让它不仅能支持下拉刷新，还能进一步支持上拉加载功能，上拉时可弹出同样的指示
  * 球并不停旋转，提供和原先下拉刷新一致的上拉加载回调、手动设置加载完成等功能。并兼容了嵌套滑动，保持了和原先下拉刷新
  * 一致的嵌套滑动处理逻辑
+ * <p>
+ * 嵌套滑动的消费顺序：向指示球拉出的方向滑动时，先交给外层的嵌套滑动父容器（例如CoordinatorLayout中的AppBarLayout），
+ * 父容器消费剩余的部分才交给指示球，最后才是子View；指示球已经拉出时反向滑动，先由指示球收回，收回后剩余的部分再交给
+ * 父容器和子View。外层父容器实现了NestedScrollingParent3时按它实际消费的距离计算，否则按自身在窗口中的位移推算
  */
-public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrollingParent,
-        NestedScrollingChild {
+public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrollingParent3,
+        NestedScrollingParent2, NestedScrollingParent, NestedScrollingChild3,
+        NestedScrollingChild2, NestedScrollingChild {
     //指示球样式：LARGE
     public static final int LARGE = CircularProgressDrawable.LARGE;
     //指示球样式：默认
     public static final int DEFAULT = CircularProgressDrawable.DEFAULT;
+    //顶部指示球
+    public static final int EDGE_TOP = 0;
+    //底部指示球
+    public static final int EDGE_BOTTOM = 1;
+    //拖动模式：只有指示球跟随手指移动，内容保持不动（默认）
+    public static final int PULL_MODE_OVERLAY = 0;
+    //拖动模式：内容跟随指示球一起平移，露出顶部Header或底部Footer
+    public static final int PULL_MODE_TRANSLATE = 1;
+    //指示球状态：空闲，位于初始位置
+    public static final int PULL_STATE_IDLE = 0;
+    //指示球状态：正在被拖动，松手不会触发刷新
+    public static final int PULL_STATE_DRAGGING = 1;
+    //指示球状态：正在被拖动，已超过刷新阈值，松手会触发刷新
+    public static final int PULL_STATE_ARMED = 2;
+    //指示球状态：已触发刷新，正在移动到悬垂位置
+    public static final int PULL_STATE_SETTLING = 3;
+    //指示球状态：停在悬垂位置刷新中
+    public static final int PULL_STATE_REFRESHING = 4;
+    //指示球状态：正在收起，回到初始位置
+    public static final int PULL_STATE_COLLAPSING = 5;
+    //动画档位：根据省电模式、系统动画时长缩放和温控状态自动选择
+    public static final int ANIMATION_PROFILE_AUTO = -1;
+    //动画档位：完整动画
+    public static final int ANIMATION_PROFILE_FULL = 0;
+    //动画档位：精简动画，不做透明度动画，回弹、缩放动画时长减半，刷新中的旋转降低帧率
+    public static final int ANIMATION_PROFILE_REDUCED = 1;
+    //动画档位：关闭动画，所有过渡直接跳到结束状态
+    public static final int ANIMATION_PROFILE_OFF = 2;
 
     @VisibleForTesting
     static final int CIRCLE_DIAMETER = 40;
@@ -60,9 +107,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     private static final int INVALID_POINTER = -1;
     //拖动速率，即手指拖动距离和指示球跟随响应移动距离的比例关系
     private static final float DRAG_RATE = .5f;
+    //没有更多数据时，底部指示球阻尼跟随的最大距离与刷新阈值的比例
+    private static final float END_REACHED_PULL_LIMIT = .5f;
+    //手势方向与竖直方向的最大夹角（度），超过这个角度的手势视为横向手势，不会拖动指示球
+    private static final int VERTICAL_DRAG_MAX_ANGLE = 30;
+    //VERTICAL_DRAG_MAX_ANGLE对应的斜率，即|dx| / |dy|的最大值
+    private static final float VERTICAL_DRAG_MAX_SLOPE =
+            (float) Math.tan(Math.toRadians(VERTICAL_DRAG_MAX_ANGLE));
 
-    //指示球内部的进度角度，默认值为80%，若设置为1，则指示球可以随着滑动合成一个完整的圆
-    private static final float MAX_PROGRESS_ANGLE = .8f;
     //指示球缩小到消失动画执行时间
     private static final int SCALE_DOWN_DURATION = 150;
     //指示球透明度动画执行时间
@@ -71,6 +123,10 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     private static final int ANIMATE_TO_TRIGGER_DURATION = 200;
     //指示球弹回初始位置执行时间
     private static final int ANIMATE_TO_START_DURATION = 200;
+    //精简档位下动画时长的缩放比例
+    private static final float REDUCED_DURATION_SCALE = .5f;
+    //精简档位下刷新中旋转动画两帧之间的最小间隔，约30fps
+    private static final long REDUCED_SPINNER_FRAME_INTERVAL = 33;
 
     //默认的指示球背景，乳白色
     private static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
@@ -93,8 +149,10 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     //指示球的最大滑动距离（超过这个距离后，指示球将不再继续滑动）
     private float mTotalDragDistance = -1;
 
-    //若嵌套滑动开启，用来表示ScrollingChild总的未消费的纵向滑动偏移量，这个total值会决定指示球需要移动到的目标位置
-    private float mTotalUnconsumed;
+    /*若嵌套滑动开启，用来表示ScrollingChild总的未消费的纵向滑动偏移量，这个total值会决定指示球需要移动到的目标位置。
+    顶部和底部分别累计，同一次嵌套滑动中先下拉再上拉到底时，两个指示球的距离互不干扰*/
+    private float mTopTotalUnconsumed;
+    private float mBottomTotalUnconsumed;
     //嵌套滑动父容器辅助类，目的是为了兼容Android 5.0以下
     private final NestedScrollingParentHelper mNestedScrollingParentHelper;
     //嵌套滑动子View辅助类，目的是为了兼容Android 5.0以下
@@ -103,6 +161,10 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     private final int[] mParentScrollConsumed = new int[2];
 
     private final int[] mParentOffsetInWindow = new int[2];
+    //接受了本次嵌套滑动的外层父容器是否实现了NestedScrollingParent3，只有实现了才会如实返回它消费的偏移量
+    private boolean mNestedScrollingParentV3;
+    //通过旧版onNestedScroll进入时，用来接收父容器消费值的数组，内容不会被使用
+    private final int[] mNestedScrollingV2ConsumedCompat = new int[2];
     //是否处在嵌套滑动中标志位
     private boolean mNestedScrollInProgress;
     //顶部指示球正在响应嵌套滑动事件
@@ -120,8 +182,10 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     private float mInitialMotionY;
     //ACTION_DOWN触发时的初始y轴坐标
     private float mInitialDownY;
-    //是否在响应拖动标志位
-    private boolean mIsBeingDragged;
+    //ACTION_DOWN触发时的初始x轴坐标
+    private float mInitialDownX;
+    //当前手势是否已被判定为横向手势，为true时本次手势不会再拖动指示球
+    private boolean mHorizontalGesture;
     //顶部指示球是否在响应拖动
     private boolean mIsBeingDraggedTop;
     //底部指示球是否在响应拖动
@@ -171,63 +235,186 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     int mBottomSpinnerOffsetEnd;
 
     int mCustomSlingshotDistance;
-    //顶部刷新球内容Drawable
-    CircularProgressDrawable mTopProgress;
-    //底部刷新球内容Drawable
-    CircularProgressDrawable mBottomProgress;
-    //顶部指示球的放大动画
-    private Animation mTopScaleAnimation;
-    //底部指示球的放大动画
-    private Animation mBottomScaleAnimation;
-    //顶部刷新球缩小动画
-    private Animation mTopScaleDownAnimation;
-    //底部刷新球缩小动画
-    private Animation mBottomScaleDownAnimation;
-    //顶部指示球透明度变为初始值动画
-    private Animation mTopAlphaStartAnimation;
+    //顶部刷新球内部的指示器
+    RefreshIndicator mTopIndicator;
+    //底部刷新球内部的指示器
+    RefreshIndicator mBottomIndicator;
+    //顶部指示球透明度变为初始值动画，只在执行期间持有，结束或取消后置空
+    private ClockAnimation mTopAlphaStartAnimation;
     //底部指示球透明度变为初始值动画
-    private Animation mBottomAlphaStartAnimation;
+    private ClockAnimation mBottomAlphaStartAnimation;
     //顶部指示球透明度变为最大动画
-    private Animation mTopAlphaMaxAnimation;
+    private ClockAnimation mTopAlphaMaxAnimation;
     //底部指示球透明度变为最大动画
-    private Animation mBottomAlphaMaxAnimation;
-    //顶部指示球回弹到初始化位置且缩小动画
-    private Animation mTopScaleDownToStartAnimation;
-    //底部指示球回弹到初始化位置且缩小动画
-    private Animation mBottomScaleDownToStartAnimation;
-    //是否需要回调onRefresh监听标志位
-    boolean mNotify;
+    private ClockAnimation mBottomAlphaMaxAnimation;
+    //驱动指示球动画的帧时钟
+    private FrameClock mFrameClock = new ChoreographerFrameClock();
+    //顶部指示球正在执行的动画，同一时间只有一个，开始新的动画会取消旧的动画，结束后置空
+    private ClockAnimation mTopRunningAnimation;
+    //底部指示球正在执行的动画
+    private ClockAnimation mBottomRunningAnimation;
+    /*顶部指示球动画结束监听，未传入新的监听时沿用上一次设置的监听；
+    监听只在动画结束时回调一次，回调前即释放，重置指示球时同样释放*/
+    private ClockAnimation.Listener mTopAnimationListener;
+    //底部指示球动画结束监听
+    private ClockAnimation.Listener mBottomAnimationListener;
+    //顶部指示球到达悬垂位置后是否需要回调onRefresh
+    boolean mTopNotify;
+    //底部指示球到达悬垂位置后是否需要回调onRefresh，与顶部分开，两端可以同时处在刷新中
+    boolean mBottomNotify;
     //指示球的直径
     private int mCircleDiameter;
     //是否由外部设置了自定义的开始位置，默认为false
     boolean mUsingCustomStart;
     //子View是否能向上滑动监听，由外部实现
     private OnChildScrollUpCallback mChildScrollUpCallback;
+    //子View是否能向下滑动监听，由外部实现
+    private OnChildScrollDownCallback mChildScrollDownCallback;
+    //是否开启预加载模式：拖动超过刷新阈值时立即回调onRefresh，拖回阈值以下时回调取消
+    private boolean mSpeculativeRefreshEnabled;
+    //顶部指示球是否已经提前回调了onRefresh，等待松手确认
+    private boolean mTopSpeculating;
+    //底部指示球是否已经提前回调了onRefresh，等待松手确认
+    private boolean mBottomSpeculating;
+    //顶部预加载取消回调
+    private OnRefreshCancelListener mTopCancelListener;
+    //底部预加载取消回调
+    private OnRefreshCancelListener mBottomCancelListener;
+    //是否在刷新确认的一刻（松手时）就回调onRefresh，而不是等指示球回弹到悬垂位置的动画结束后再回调
+    private boolean mDispatchRefreshOnRelease;
+    //是否使用RenderThread驱动的旋转圆环展示刷新中的状态
+    private boolean mRenderThreadSpinnerEnabled;
+    //指示球当前是否不可见（View或窗口被隐藏、被滑出屏幕），不可见时刷新中的旋转动画会暂停
+    private boolean mSpinnersHidden;
+    //顶部指示球的旋转动画是否因为不可见而被暂停，重新可见时需要恢复
+    private boolean mTopSpinnerPaused;
+    //底部指示球的旋转动画是否因为不可见而被暂停，重新可见时需要恢复
+    private boolean mBottomSpinnerPaused;
+    //暂停时记录的圆环状态：起点、终点、旋转角度，恢复时还原，见pauseSpinner
+    private final float[] mTopSpinnerState = new float[3];
+    private final float[] mBottomSpinnerState = new float[3];
+    //拖动模式，PULL_MODE_OVERLAY或PULL_MODE_TRANSLATE
+    private int mPullMode = PULL_MODE_OVERLAY;
+    //平移模式下内容下移时露出的顶部Header
+    private View mTopHeaderView;
+    //平移模式下内容上移时露出的底部Footer
+    private View mBottomFooterView;
+    //Header、Footer上一次测量时的宽度，宽度不变时不再重复测量
+    private int mHeaderMeasuredWidth = -1;
+    //判断是否在屏幕内时复用的Rect，避免每次滚动都创建对象
+    private final Rect mVisibleRect = new Rect();
+    //顶部刷新策略，为null时每次下拉超过阈值都会回调onRefresh
+    private RefreshPolicy mTopRefreshPolicy;
+    //顶部指示球是否正处在新鲜期内的短暂悬停中（这次"刷新"不会回调onRefresh）
+    private boolean mTopFreshHolding;
+    //底部的没有更多数据状态，此时上拉只有阻尼回弹，不会触发加载
+    private final EndReachedState mBottomEndReached = new EndReachedState();
+    //没有更多数据时上拉超过刷新阈值松手的回调
+    private OnEndReachedPullListener mBottomEndReachedPullListener;
+
+    //顶部刷新的超时时长，小于等于0表示不检查超时
+    private long mTopRefreshTimeout;
+    //底部刷新的超时时长，小于等于0表示不检查超时
+    private long mBottomRefreshTimeout;
+    //顶部进入刷新状态的时间
+    private long mTopRefreshStartedAt;
+    //底部进入刷新状态的时间
+    private long mBottomRefreshStartedAt;
+    //顶部刷新超时的次数
+    private int mTopRefreshTimeoutCount;
+    //底部刷新超时的次数
+    private int mBottomRefreshTimeoutCount;
+    //顶部刷新是否正因为超时而被收起，超时不代表数据已刷新，不能记录到刷新策略中
+    private boolean mTopRefreshTimingOut;
+    //刷新超时监听
+    private OnRefreshTimeoutListener mRefreshTimeoutListener;
+    //刷新结束时负责通知新数据并保持可见位置的锚定器
+    private RefreshAnchor mRefreshAnchor;
+    //是否根据触摸事件流预测手指在下一个vsync时的位置来放置指示球
+    private boolean mTouchPredictionEnabled;
+    private final TouchPredictor mTouchPredictor = new TouchPredictor();
+    //屏幕一帧的时长，attach时根据屏幕刷新率更新
+    private float mFrameIntervalMillis = 1000f / 60;
+    //顶部最近一次拖动的距离（手指移动距离 * DRAG_RATE），用于判断是否超过刷新阈值
+    private float mTopPullDistance;
+    //底部最近一次拖动的距离
+    private float mBottomPullDistance;
+    //向外部分发两端的状态、拖动进度和位移，每帧最多一次
+    private final PullStateDispatcher mPullStateDispatcher = new PullStateDispatcher(
+            new PullStateDispatcher.Source() {
+                @Override
+                public int getPullState(int edge) {
+                    return DuplexSwipeRefreshLayout.this.getPullState(edge);
+                }
 
-    //顶部刷新球刷新移动到指定悬垂位置的动画监听器
-    private AnimationListener mTopRefreshListener = new AnimationListener() {
+                @Override
+                public float getPullFraction(int edge) {
+                    return DuplexSwipeRefreshLayout.this.getPullFraction(edge);
+                }
+
+                @Override
+                public int getPullOffset(int edge) {
+                    return DuplexSwipeRefreshLayout.this.getPullOffset(edge);
+                }
+            });
+    //监听省电模式、动画时长缩放和温控状态
+    private final AnimationProfileMonitor mAnimationProfileMonitor;
+    //外部指定的动画档位，ANIMATION_PROFILE_AUTO表示自动选择
+    private int mAnimationProfileOverride = ANIMATION_PROFILE_AUTO;
+    //当前生效的动画档位
+    private int mAnimationProfile = ANIMATION_PROFILE_FULL;
+    //当前生效的动画时长缩放比例，系统动画时长缩放与档位缩放的乘积
+    private float mAnimationDurationScale = 1f;
+    //顶部加载任务开始的时间（回调onRefresh或外部手动开始刷新），-1表示没有进行中的加载
+    private long mTopLoadStartedAt = -1;
+    //底部加载任务开始的时间，-1表示没有进行中的加载
+    private long mBottomLoadStartedAt = -1;
+    //顶部从触发刷新到回调onRefresh的耗时，即指示球动画占用的时间
+    private final LatencyHistogram mTopDispatchLatency = new LatencyHistogram();
+    //底部从触发刷新到回调onRefresh的耗时
+    private final LatencyHistogram mBottomDispatchLatency = new LatencyHistogram();
+    //顶部从开始加载到刷新结束的耗时，即加载任务本身的时间
+    private final LatencyHistogram mTopCompletionLatency = new LatencyHistogram();
+    //底部从开始加载到刷新结束的耗时
+    private final LatencyHistogram mBottomCompletionLatency = new LatencyHistogram();
+
+    //顶部刷新超时后收起指示球
+    private final Runnable mTopRefreshWatchdog = new Runnable() {
+        @Override
+        public void run() {
+            onTopRefreshTimeout();
+        }
+    };
+
+    //底部刷新超时后收起指示球
+    private final Runnable mBottomRefreshWatchdog = new Runnable() {
         @Override
-        public void onAnimationStart(Animation animation) {
+        public void run() {
+            onBottomRefreshTimeout();
         }
+    };
 
+    //新鲜期内下拉时，指示球悬停一段时间后收起
+    private final Runnable mTopFreshHoldCallback = new Runnable() {
         @Override
-        public void onAnimationRepeat(Animation animation) {
+        public void run() {
+            setTopRefreshing(false);
         }
+    };
 
+    //顶部刷新球刷新移动到指定悬垂位置的动画监听器
+    private final ClockAnimation.Listener mTopRefreshListener = new ClockAnimation.Listener() {
         @Override
-        public void onAnimationEnd(Animation animation) {
+        public void onAnimationEnd() {
             //当顶部指示球已经移动到悬垂位置后
             if (mTopRefreshing) {
                 //将指示球的透明度设满，让其完全显示
-                mTopProgress.setAlpha(MAX_ALPHA);
+                mTopIndicator.setAlpha(MAX_ALPHA);
                 //开始指示球内部圆环的旋转动画，表示当前正在刷新中
-                mTopProgress.start();
-                if (mNotify) {
-                    //判断是否需要通知
-                    if (mTopListener != null) {
-                        //若设置了顶部指示球刷新监听，回调onRefresh
-                        mTopListener.onRefresh();
-                    }
+                startTopSpinnerAnimation();
+                if (mTopNotify) {
+                    //判断是否需要通知，若设置了顶部指示球刷新监听，回调onRefresh
+                    dispatchTopRefresh();
                 }
                 mCurrentTargetOffsetTop = mTopCircleView.getTop();
             } else {
@@ -238,28 +425,18 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     };
 
     //底部指示球滑动到悬停位置的动画监听器
-    private AnimationListener mBottomToCorrectAnimationListener = new AnimationListener() {
+    private final ClockAnimation.Listener mBottomToCorrectAnimationListener = new ClockAnimation.Listener() {
         @Override
-        public void onAnimationStart(Animation animation) {
-        }
-
-        @Override
-        public void onAnimationRepeat(Animation animation) {
-        }
-
-        @Override
-        public void onAnimationEnd(Animation animation) {
+        public void onAnimationEnd() {
             //当动画完成时，此时底部指示球已经处在悬停位置，接下来可以开始不停旋转了
             if (mBottomRefreshing) {
                 // Make sure the progress view is fully visible
-                mBottomProgress.setAlpha(MAX_ALPHA);
+                mBottomIndicator.setAlpha(MAX_ALPHA);
                 //开始让底部指示球不停转动
-                mBottomProgress.start();
-                if (mNotify) {
+                startBottomSpinnerAnimation();
+                if (mBottomNotify) {
                     //触发底部指示球开始刷新回调
-                    if (mBottomListener != null) {
-                        mBottomListener.onRefresh();
-                    }
+                    dispatchBottomRefresh();
                 }
                 mCurrentTargetOffsetBottom = mBottomCircleView.getTop();
             } else {
@@ -273,10 +450,11 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * 重置顶部指示球的状态
      */
     void resetTop() {
-        //清空指示球的动画
-        mTopCircleView.clearAnimation();
+        //清空指示球的动画，并释放还没有回调的监听
+        clearTopAnimation();
+        mTopAnimationListener = null;
         //内部圆环停止旋转（停止其动画）
-        mTopProgress.stop();
+        stopTopSpinnerAnimation();
         mTopCircleView.setVisibility(View.GONE);
         setTopColorViewAlpha(MAX_ALPHA);
         // Return the circle to its start position
@@ -294,8 +472,9 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * 重置顶部指示球的状态
      */
     void resetBottom() {
-        mBottomCircleView.clearAnimation();
-        mBottomProgress.stop();
+        clearBottomAnimation();
+        mBottomAnimationListener = null;
+        stopBottomSpinnerAnimation();
         mBottomCircleView.setVisibility(View.GONE);
         setBottomColorViewAlpha(MAX_ALPHA);
         // Return the circle to its start position
@@ -318,16 +497,305 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnScrollChangedListener(mScrollChangedListener);
+        getViewTreeObserver().addOnPreDrawListener(mPullStatePreDrawListener);
+        //detach期间不分发状态，重新attach后补发一次当前状态
+        invalidatePullState();
+        final Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            mFrameIntervalMillis = 1000f / display.getRefreshRate();
+        }
+        mAnimationProfileMonitor.start();
+        updateAnimationProfile();
+        //detach期间的刷新仍在计时，重新attach后按剩余时长继续检查
+        armTopRefreshWatchdog();
+        armBottomRefreshWatchdog();
+        //设置了刷新策略且数据已过期时，自动发起一次顶部刷新，缓存内容照常展示，刷新在顶部指示球后台进行
+        if (mTopRefreshPolicy != null && mTopRefreshPolicy.isAutoRefreshOnAttach()
+                && !mTopRefreshing && isEnabled() && mTopRefreshPolicy.isStale()) {
+            showTopRefreshing(true /* notify */);
+        }
+    }
+
     /**
      * 注意!因为SwipeRefreshLayout是有动画的，所以必须在onDetachedFromWindow中清空、停止动画，防止内存泄露
      */
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnScrollChangedListener(mScrollChangedListener);
+        getViewTreeObserver().removeOnPreDrawListener(mPullStatePreDrawListener);
+        mAnimationProfileMonitor.stop();
+        mSpinnersHidden = false;
+        removeCallbacks(mTopRefreshWatchdog);
+        removeCallbacks(mBottomRefreshWatchdog);
+        if (mTopFreshHolding) {
+            //新鲜期内的悬停没有真正的加载任务，直接结束，避免再次attach后指示球一直停留
+            removeCallbacks(mTopFreshHoldCallback);
+            mTopFreshHolding = false;
+            mTopRefreshing = false;
+        }
+        //拖动中途被移除，预加载不会再被确认
+        if (mTopSpeculating) {
+            cancelTopSpeculativeRefresh();
+        }
+        if (mBottomSpeculating) {
+            cancelBottomSpeculativeRefresh();
+        }
         //重置顶部指示球
         resetTop();
         //重置底部指示球
         resetBottom();
+        //重置过程中会再次标记状态变化，最后再取消，detach之后不再持有帧时钟的回调
+        mPullStateDispatcher.cancel();
+    }
+
+    /**
+     * 绘制之前分发两端的状态，监听驱动的其它View（例如视差Header）与指示球在同一帧更新
+     */
+    private final ViewTreeObserver.OnPreDrawListener mPullStatePreDrawListener =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    mPullStateDispatcher.flush();
+                    return true;
+                }
+            };
+
+    /**
+     * 祖先容器滚动时（例如ViewPager2翻页、外层列表滚动）检查是否被滑出了屏幕
+     */
+    private final ViewTreeObserver.OnScrollChangedListener mScrollChangedListener =
+            new ViewTreeObserver.OnScrollChangedListener() {
+                @Override
+                public void onScrollChanged() {
+                    if (mTopRefreshing || mBottomRefreshing) {
+                        updateSpinnersHidden();
+                    }
+                }
+            };
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateSpinnersHidden();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateSpinnersHidden();
+    }
+
+    /**
+     * 根据当前的可见性暂停或恢复刷新中指示球的旋转动画。不可见时停止旋转，不再请求绘制帧；重新可见时从
+     * 原来的刷新状态恢复旋转。整个过程不会修改mTopRefreshing/mBottomRefreshing，也不会回调任何监听。
+     * 注意：窗口失去焦点（例如弹出对话框、分屏时另一个窗口获得焦点）时界面仍然可见，因此不会暂停。
+     */
+    private void updateSpinnersHidden() {
+        final boolean hidden = getWindowVisibility() != View.VISIBLE || !isShown()
+                || !getGlobalVisibleRect(mVisibleRect);
+        if (hidden == mSpinnersHidden) {
+            return;
+        }
+        mSpinnersHidden = hidden;
+        if (hidden) {
+            mTopSpinnerPaused = pauseSpinner(mTopCircleView, mTopSpinnerState);
+            mBottomSpinnerPaused = pauseSpinner(mBottomCircleView, mBottomSpinnerState);
+        } else {
+            if (mTopSpinnerPaused) {
+                mTopSpinnerPaused = false;
+                resumeSpinner(mTopCircleView, mTopSpinnerState);
+            }
+            if (mBottomSpinnerPaused) {
+                mBottomSpinnerPaused = false;
+                resumeSpinner(mBottomCircleView, mBottomSpinnerState);
+            }
+        }
+    }
+
+    /**
+     * 暂停指示球内部正在执行的旋转动画。CircularProgressDrawable的stop()会把圆环重置到初始状态，
+     * 因此先记录圆环当前的起点、终点和旋转角度，恢复时还原，圆环从暂停时的位置继续转动。
+     * 当前颜色的下标没有公开的读写方法，恢复后颜色从配色的第一个重新开始；RenderThread驱动的圆环
+     * （AnimatedVectorDrawable）无法读取进度，恢复后从头开始
+     *
+     * @param state 用于保存圆环状态的数组
+     * @return 是否有旋转动画被暂停
+     */
+    private boolean pauseSpinner(CircleImageView circleView, float[] state) {
+        final Drawable drawable = circleView.getDrawable();
+        if (drawable instanceof Animatable && ((Animatable) drawable).isRunning()) {
+            if (drawable instanceof CircularProgressDrawable) {
+                final CircularProgressDrawable progress = (CircularProgressDrawable) drawable;
+                state[0] = progress.getStartTrim();
+                state[1] = progress.getEndTrim();
+                state[2] = progress.getProgressRotation();
+            }
+            ((Animatable) drawable).stop();
+            return true;
+        }
+        return false;
+    }
+
+    private void resumeSpinner(CircleImageView circleView, float[] state) {
+        final Drawable drawable = circleView.getDrawable();
+        if (drawable instanceof CircularProgressDrawable) {
+            //圆环可见部分不为空时，start()会从当前的圆环位置接着转动
+            final CircularProgressDrawable progress = (CircularProgressDrawable) drawable;
+            progress.setStartEndTrim(state[0], state[1]);
+            progress.setProgressRotation(state[2]);
+        }
+        if (drawable instanceof Animatable) {
+            ((Animatable) drawable).start();
+        }
+    }
+
+    /**
+     * 顶部指示球开始刷新中的旋转
+     */
+    private void startTopSpinnerAnimation() {
+        mTopIndicator.onRefreshStart();
+        syncIndicatorDrawable(mTopCircleView, mTopIndicator);
+        mTopCircleView.setMinInvalidateInterval(getSpinnerFrameInterval());
+        if (mSpinnersHidden) {
+            //当前不可见，先停下，等重新可见时再恢复旋转
+            mTopSpinnerPaused = pauseSpinner(mTopCircleView, mTopSpinnerState);
+        }
+    }
+
+    /**
+     * 底部指示球开始刷新中的旋转
+     */
+    private void startBottomSpinnerAnimation() {
+        mBottomIndicator.onRefreshStart();
+        syncIndicatorDrawable(mBottomCircleView, mBottomIndicator);
+        mBottomCircleView.setMinInvalidateInterval(getSpinnerFrameInterval());
+        if (mSpinnersHidden) {
+            //当前不可见，先停下，等重新可见时再恢复旋转
+            mBottomSpinnerPaused = pauseSpinner(mBottomCircleView, mBottomSpinnerState);
+        }
+    }
+
+    /**
+     * 顶部指示球停止旋转
+     */
+    private void stopTopSpinnerAnimation() {
+        mTopSpinnerPaused = false;
+        mTopCircleView.setMinInvalidateInterval(0);
+        mTopIndicator.onRefreshStop();
+        syncIndicatorDrawable(mTopCircleView, mTopIndicator);
+    }
+
+    /**
+     * 底部指示球停止旋转
+     */
+    private void stopBottomSpinnerAnimation() {
+        mBottomSpinnerPaused = false;
+        mBottomCircleView.setMinInvalidateInterval(0);
+        mBottomIndicator.onRefreshStop();
+        syncIndicatorDrawable(mBottomCircleView, mBottomIndicator);
+    }
+
+    /**
+     * 指示器可能在开始、停止刷新时切换了Drawable，同步到指示球上
+     */
+    private void syncIndicatorDrawable(CircleImageView circleView, RefreshIndicator indicator) {
+        final Drawable drawable = indicator.getDrawable();
+        if (circleView.getDrawable() != drawable) {
+            circleView.setImageDrawable(drawable);
+        }
+    }
+
+    //顶部动画结束时先释放动画和监听，再回调监听
+    private final ClockAnimation.Listener mTopAnimationEnd = new ClockAnimation.Listener() {
+        @Override
+        public void onAnimationEnd() {
+            final ClockAnimation.Listener listener = mTopAnimationListener;
+            mTopRunningAnimation = null;
+            mTopAnimationListener = null;
+            mTopAlphaStartAnimation = null;
+            mTopAlphaMaxAnimation = null;
+            invalidatePullState();
+            if (listener != null) {
+                listener.onAnimationEnd();
+            }
+        }
+    };
+
+    //底部动画结束时先释放动画和监听，再回调监听
+    private final ClockAnimation.Listener mBottomAnimationEnd = new ClockAnimation.Listener() {
+        @Override
+        public void onAnimationEnd() {
+            final ClockAnimation.Listener listener = mBottomAnimationListener;
+            mBottomRunningAnimation = null;
+            mBottomAnimationListener = null;
+            mBottomAlphaStartAnimation = null;
+            mBottomAlphaMaxAnimation = null;
+            invalidatePullState();
+            if (listener != null) {
+                listener.onAnimationEnd();
+            }
+        }
+    };
+
+    /**
+     * 开始顶部指示球的动画，取消正在执行的动画，结束时回调当前的顶部动画监听。
+     * 关闭动画的档位下直接跳到结束状态并同步回调监听
+     */
+    private void startTopAnimation(ClockAnimation animation) {
+        clearTopAnimation();
+        mTopRunningAnimation = animation;
+        animation.setListener(mTopAnimationEnd);
+        invalidatePullState();
+        runAnimation(animation);
+    }
+
+    /**
+     * 开始底部指示球的动画，取消正在执行的动画，结束时回调当前的底部动画监听。
+     * 关闭动画的档位下直接跳到结束状态并同步回调监听
+     */
+    private void startBottomAnimation(ClockAnimation animation) {
+        clearBottomAnimation();
+        mBottomRunningAnimation = animation;
+        animation.setListener(mBottomAnimationEnd);
+        invalidatePullState();
+        runAnimation(animation);
+    }
+
+    private void runAnimation(ClockAnimation animation) {
+        if (mAnimationProfile == ANIMATION_PROFILE_OFF) {
+            animation.finish();
+        } else {
+            animation.setDurationScale(mAnimationDurationScale);
+            animation.start(mFrameClock);
+        }
+    }
+
+    /**
+     * 取消顶部正在执行的动画，不会回调监听；监听保留给接下来开始的动画
+     */
+    private void clearTopAnimation() {
+        if (mTopRunningAnimation != null) {
+            mTopRunningAnimation.cancel();
+            mTopRunningAnimation = null;
+        }
+        mTopAlphaStartAnimation = null;
+        mTopAlphaMaxAnimation = null;
+        invalidatePullState();
+    }
+
+    private void clearBottomAnimation() {
+        if (mBottomRunningAnimation != null) {
+            mBottomRunningAnimation.cancel();
+            mBottomRunningAnimation = null;
+        }
+        mBottomAlphaStartAnimation = null;
+        mBottomAlphaMaxAnimation = null;
+        invalidatePullState();
     }
 
     /**
@@ -336,7 +804,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     private void setTopColorViewAlpha(int targetAlpha) {
         mTopCircleView.getBackground().setAlpha(targetAlpha);
-        mTopProgress.setAlpha(targetAlpha);
+        mTopIndicator.setAlpha(targetAlpha);
     }
 
     /**
@@ -345,7 +813,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     private void setBottomColorViewAlpha(int targetAlpha) {
         mBottomCircleView.getBackground().setAlpha(targetAlpha);
-        mBottomProgress.setAlpha(targetAlpha);
+        mBottomIndicator.setAlpha(targetAlpha);
     }
 
     /**
@@ -386,8 +854,8 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     public void setColorSchemeColors(@ColorInt int... colors) {
         ensureTarget();
-        mTopProgress.setColorSchemeColors(colors);
-        mBottomProgress.setColorSchemeColors(colors);
+        mTopIndicator.setColorSchemeColors(colors);
+        mBottomIndicator.setColorSchemeColors(colors);
     }
 
     /**
@@ -480,12 +948,12 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         // update by setting it to null before updating its size and then
         // re-setting it
         mTopCircleView.setImageDrawable(null);
-        mTopProgress.setStyle(size);
-        mTopCircleView.setImageDrawable(mTopProgress);
+        mTopIndicator.setSize(size);
+        mTopCircleView.setImageDrawable(mTopIndicator.getDrawable());
 
         mBottomCircleView.setImageDrawable(null);
-        mBottomProgress.setStyle(size);
-        mBottomCircleView.setImageDrawable(mBottomProgress);
+        mBottomIndicator.setSize(size);
+        mBottomCircleView.setImageDrawable(mBottomIndicator.getDrawable());
     }
 
     /**
@@ -502,6 +970,285 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         mBottomListener = listener;
     }
 
+    /**
+     * 设置是否开启预加载模式。开启后，拖动指示球超过刷新阈值的一刻就会回调onRefresh，让加载任务比松手时提前
+     * 几百毫秒开始；若松手前又拖回阈值以下（或手势被取消），则回调{@link OnRefreshCancelListener#onRefreshCancelled()}，
+     * 之后再次越过阈值会重新回调onRefresh。松手时已越过阈值的，指示球照常进入刷新状态，不会重复回调onRefresh。
+     */
+    public void setSpeculativeRefreshEnabled(boolean enabled) {
+        mSpeculativeRefreshEnabled = enabled;
+    }
+
+    public boolean isSpeculativeRefreshEnabled() {
+        return mSpeculativeRefreshEnabled;
+    }
+
+    /**
+     * 设置是否在刷新确认的一刻就回调onRefresh。默认false，与原生SwipeRefreshLayout一致，onRefresh在指示球
+     * 回弹到悬垂位置的动画（约200ms）结束后才回调；设置为true后，松手超过阈值时立即回调，回弹和旋转动画与加载任务并行，
+     * 每次刷新都能提前约200ms开始。
+     */
+    public void setDispatchRefreshOnRelease(boolean onRelease) {
+        mDispatchRefreshOnRelease = onRelease;
+    }
+
+    public boolean isDispatchRefreshOnRelease() {
+        return mDispatchRefreshOnRelease;
+    }
+
+    /**
+     * 设置刷新中的指示球是否使用RenderThread驱动的旋转圆环。CircularProgressDrawable的旋转动画运行在主线程，
+     * onRefresh回调或列表刷新阻塞主线程时指示球会卡住；开启后，指示球到达悬垂位置开始旋转时会切换为
+     * AnimatedVectorDrawable圆环，在API 25及以上由RenderThread驱动，刷新期间主线程每帧不再有任何工作。
+     * 低于API 25的设备上AnimatedVectorDrawable仍在主线程运行，没有收益，因此继续使用CircularProgressDrawable。
+     * 拖动过程中的箭头和进度变化仍由CircularProgressDrawable绘制。仅对默认的{@link CircularRefreshIndicator}生效。
+     */
+    public void setRenderThreadSpinnerEnabled(boolean enabled) {
+        mRenderThreadSpinnerEnabled = enabled;
+        if (mTopIndicator instanceof CircularRefreshIndicator) {
+            ((CircularRefreshIndicator) mTopIndicator).setRenderThreadRingEnabled(enabled);
+        }
+        if (mBottomIndicator instanceof CircularRefreshIndicator) {
+            ((CircularRefreshIndicator) mBottomIndicator).setRenderThreadRingEnabled(enabled);
+        }
+    }
+
+    public boolean isRenderThreadSpinnerEnabled() {
+        return mRenderThreadSpinnerEnabled;
+    }
+
+    /**
+     * 设置顶部刷新的超时时长。onRefresh的实现方忘记调用setTopRefreshing(false)时，指示球会一直旋转，
+     * 顶部也无法再次触发刷新；超过这个时长后指示球会被自动收起，并回调{@link OnRefreshTimeoutListener}。
+     * 传入0关闭超时检查（默认）。刷新中修改会按已经过去的时间重新计算剩余时长
+     */
+    public void setTopRefreshTimeout(long timeoutMillis) {
+        mTopRefreshTimeout = timeoutMillis;
+        armTopRefreshWatchdog();
+    }
+
+    public long getTopRefreshTimeout() {
+        return mTopRefreshTimeout;
+    }
+
+    /**
+     * 设置底部刷新的超时时长，见{@link #setTopRefreshTimeout(long)}
+     */
+    public void setBottomRefreshTimeout(long timeoutMillis) {
+        mBottomRefreshTimeout = timeoutMillis;
+        armBottomRefreshWatchdog();
+    }
+
+    public long getBottomRefreshTimeout() {
+        return mBottomRefreshTimeout;
+    }
+
+    /**
+     * 设置刷新超时监听
+     */
+    public void setOnRefreshTimeoutListener(@Nullable OnRefreshTimeoutListener listener) {
+        mRefreshTimeoutListener = listener;
+    }
+
+    /**
+     * @param edge {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+     * @return 该方向刷新超时被自动收起的累计次数，可用于上报
+     */
+    public int getRefreshTimeoutCount(int edge) {
+        return edge == EDGE_TOP ? mTopRefreshTimeoutCount : mBottomRefreshTimeoutCount;
+    }
+
+    /**
+     * 某一端的指示球当前是否处在活动状态：正在被拖动（触摸或嵌套滑动）、正在刷新，或正在执行回弹、缩放等动画。
+     * 活动期间子View在这一端不应再绘制自己的越界效果，RecyclerView可以使用view-recyclerview模块中的DuplexEdgeEffectFactory
+     *
+     * @param edge {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+     */
+    public boolean isEdgeActive(int edge) {
+        if (edge == EDGE_TOP) {
+            return mIsBeingDraggedTop || mTopViewNestedScrollDragging || mTopRefreshing
+                    || isAnimationRunning(mTopRunningAnimation);
+        }
+        return mIsBeingDraggedBottom || mBottomViewNestedScrollDragging || mBottomRefreshing
+                || isAnimationRunning(mBottomRunningAnimation);
+    }
+
+    /**
+     * 从触发刷新（松手越过阈值、手动调用setXXRefreshing(true)、attach时自动刷新）到回调onRefresh的耗时统计，
+     * 反映指示球动画占用了多少感知时间，见{@link #setDispatchRefreshOnRelease(boolean)}
+     *
+     * @param edge {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+     */
+    @NonNull
+    public LatencyHistogram getRefreshDispatchLatency(int edge) {
+        return edge == EDGE_TOP ? mTopDispatchLatency : mBottomDispatchLatency;
+    }
+
+    /**
+     * 从开始加载（回调onRefresh，或外部手动开始刷新）到刷新结束的耗时统计，反映加载任务本身的时间。
+     * 超时被自动收起的刷新不计入
+     *
+     * @param edge {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+     */
+    @NonNull
+    public LatencyHistogram getRefreshCompletionLatency(int edge) {
+        return edge == EDGE_TOP ? mTopCompletionLatency : mBottomCompletionLatency;
+    }
+
+    /**
+     * 将两端的耗时统计写入writer，写完不会关闭writer，调试时使用。统计数据只能在主线程读取，
+     * 需要写入文件时可以先在主线程写入StringWriter，再由调用方在后台线程按自己选择的编码写入文件
+     */
+    public void dumpRefreshLatency(@NonNull Writer writer) throws IOException {
+        writer.write("top dispatch: " + mTopDispatchLatency.snapshot() + "\n");
+        writer.write("top completion: " + mTopCompletionLatency.snapshot() + "\n");
+        writer.write("bottom dispatch: " + mBottomDispatchLatency.snapshot() + "\n");
+        writer.write("bottom completion: " + mBottomCompletionLatency.snapshot() + "\n");
+    }
+
+    /**
+     * 替换驱动指示球位移、缩放、透明度动画的帧时钟，默认跟随Choreographer的vsync。测试和基准测试中可以传入
+     * 手动推进的时钟逐帧推进，以远高于屏幕刷新率的速度跑完整的刷新过程并统计每帧的开销。
+     * 正在执行的动画仍由原来的时钟推进直到结束，之后开始的动画使用新的时钟
+     */
+    public void setFrameClock(@NonNull FrameClock clock) {
+        mPullStateDispatcher.cancel();
+        mFrameClock = clock;
+        invalidatePullState();
+    }
+
+    @NonNull
+    public FrameClock getFrameClock() {
+        return mFrameClock;
+    }
+
+    /**
+     * 替换顶部指示球内部的指示器，用于实现自定义的下拉动画。指示球的位移、缩放、背景仍由布局负责，
+     * 指示器需要遵守{@link RefreshIndicator}中的约定。刷新中替换时，新的指示器会立即开始刷新中的状态。
+     */
+    public void setTopRefreshIndicator(@NonNull RefreshIndicator indicator) {
+        if (mTopIndicator == indicator) {
+            return;
+        }
+        mTopIndicator.onRefreshStop();
+        indicator.setAlpha(mTopIndicator.getAlpha());
+        mTopIndicator = indicator;
+        mTopCircleView.setImageDrawable(indicator.getDrawable());
+        if (mTopRefreshing) {
+            startTopSpinnerAnimation();
+        }
+    }
+
+    @NonNull
+    public RefreshIndicator getTopRefreshIndicator() {
+        return mTopIndicator;
+    }
+
+    /**
+     * 替换底部指示球内部的指示器，见{@link #setTopRefreshIndicator(RefreshIndicator)}
+     */
+    public void setBottomRefreshIndicator(@NonNull RefreshIndicator indicator) {
+        if (mBottomIndicator == indicator) {
+            return;
+        }
+        mBottomIndicator.onRefreshStop();
+        indicator.setAlpha(mBottomIndicator.getAlpha());
+        mBottomIndicator = indicator;
+        mBottomCircleView.setImageDrawable(indicator.getDrawable());
+        if (mBottomRefreshing) {
+            startBottomSpinnerAnimation();
+        }
+    }
+
+    @NonNull
+    public RefreshIndicator getBottomRefreshIndicator() {
+        return mBottomIndicator;
+    }
+
+    /**
+     * 设置拖动模式。{@link #PULL_MODE_OVERLAY}为默认模式，只有指示球覆盖在内容上方移动；
+     * {@link #PULL_MODE_TRANSLATE}模式下内容会跟随指示球一起平移，露出{@link #setTopHeaderView(View)}
+     * 和{@link #setBottomFooterView(View)}设置的Header、Footer。平移只修改内容的translationY，
+     * 与默认模式一样不会重新布局内容
+     */
+    public void setPullMode(int pullMode) {
+        if (pullMode != PULL_MODE_OVERLAY && pullMode != PULL_MODE_TRANSLATE) {
+            return;
+        }
+        mPullMode = pullMode;
+        ensureTarget();
+        if (pullMode == PULL_MODE_TRANSLATE) {
+            updateTargetTranslation();
+        } else {
+            if (mTarget != null) {
+                mTarget.setTranslationY(0);
+            }
+            setHeaderVisibility(mTopHeaderView, false);
+            setHeaderVisibility(mBottomFooterView, false);
+        }
+    }
+
+    public int getPullMode() {
+        return mPullMode;
+    }
+
+    /**
+     * 设置平移模式下内容下移时露出的顶部Header，宽度与内容一致，高度由Header自身决定，传入null移除
+     */
+    public void setTopHeaderView(@Nullable View header) {
+        mTopHeaderView = replaceHeaderView(mTopHeaderView, header);
+    }
+
+    @Nullable
+    public View getTopHeaderView() {
+        return mTopHeaderView;
+    }
+
+    /**
+     * 设置平移模式下内容上移时露出的底部Footer，宽度与内容一致，高度由Footer自身决定，传入null移除
+     */
+    public void setBottomFooterView(@Nullable View footer) {
+        mBottomFooterView = replaceHeaderView(mBottomFooterView, footer);
+    }
+
+    @Nullable
+    public View getBottomFooterView() {
+        return mBottomFooterView;
+    }
+
+    private View replaceHeaderView(View oldView, View newView) {
+        if (oldView == newView) {
+            return newView;
+        }
+        //先确定内容View，避免新加入的Header被误认为内容
+        ensureTarget();
+        if (oldView != null) {
+            removeView(oldView);
+        }
+        if (newView != null) {
+            newView.setVisibility(View.INVISIBLE);
+            //放在最底层，绘制在内容的后面
+            addView(newView, 0);
+        }
+        //新的Header需要测量一次
+        mHeaderMeasuredWidth = -1;
+        return newView;
+    }
+
+    /**
+     * 设置顶部预加载取消监听，仅在预加载模式下生效
+     */
+    public void setOnTopRefreshCancelListener(@Nullable OnRefreshCancelListener listener) {
+        mTopCancelListener = listener;
+    }
+
+    /**
+     * 设置底部预加载取消监听，仅在预加载模式下生效
+     */
+    public void setOnBottomRefreshCancelListener(@Nullable OnRefreshCancelListener listener) {
+        mBottomCancelListener = listener;
+    }
+
     /**
      * Simple constructor to use when creating a SwipeRefreshLayout from code.
      *
@@ -542,6 +1289,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
         setNestedScrollingEnabled(true);
 
+        mAnimationProfileMonitor = new AnimationProfileMonitor(context,
+                new AnimationProfileMonitor.Listener() {
+                    @Override
+                    public void onAnimationProfileChanged() {
+                        updateAnimationProfile();
+                    }
+                });
+
         mOriginalOffsetTop = mCurrentTargetOffsetTop = -mCircleDiameter;
         moveToStart(1.0f);
         //moveToEnd(1.0f);
@@ -572,16 +1327,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     private void createProgressView() {
         mTopCircleView = new CircleImageView(getContext(), CIRCLE_BG_LIGHT);
-        mTopProgress = new CircularProgressDrawable(getContext());
-        mTopProgress.setStyle(CircularProgressDrawable.DEFAULT);
-        mTopCircleView.setImageDrawable(mTopProgress);
+        mTopIndicator = new CircularRefreshIndicator(getContext());
+        mTopCircleView.setImageDrawable(mTopIndicator.getDrawable());
         mTopCircleView.setVisibility(View.GONE);
         addView(mTopCircleView);
 
         mBottomCircleView = new CircleImageView(getContext(), CIRCLE_BG_LIGHT);
-        mBottomProgress = new CircularProgressDrawable(getContext());
-        mBottomProgress.setStyle(CircularProgressDrawable.DEFAULT);
-        mBottomCircleView.setImageDrawable(mBottomProgress);
+        mBottomIndicator = new CircularRefreshIndicator(getContext());
+        mBottomCircleView.setImageDrawable(mBottomIndicator.getDrawable());
         mBottomCircleView.setVisibility(View.GONE);
         addView(mBottomCircleView);
     }
@@ -591,22 +1344,264 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     public void setTopRefreshing(boolean refreshing) {
         if (refreshing && mTopRefreshing != refreshing) {
-            // scale and show
-            mTopRefreshing = refreshing;
-            int endTarget = 0;
-            if (!mUsingCustomStart) {
-                endTarget = mTopSpinnerOffsetEnd + mOriginalOffsetTop;
-            } else {
-                endTarget = mTopSpinnerOffsetEnd;
-            }
-            setTopCircleViewTargetOffsetTopAndBottom(endTarget - mCurrentTargetOffsetTop);
-            mNotify = false;
-            startTopScaleUpAnimation(mTopRefreshListener);
+            showTopRefreshing(false /* notify */);
+            //外部手动开始的刷新，加载任务由外部在调用时开始
+            mTopLoadStartedAt = mTopRefreshStartedAt;
         } else {
             setTopRefreshing(refreshing, false /* notify */);
         }
     }
 
+    /**
+     * 将顶部指示球直接放到悬垂位置并以放大动画展示，进入刷新状态
+     *
+     * @param notify 放大动画结束后是否需要回调onRefresh
+     */
+    private void showTopRefreshing(boolean notify) {
+        // scale and show
+        mTopRefreshing = true;
+        onTopRefreshStarted();
+        int endTarget = 0;
+        if (!mUsingCustomStart) {
+            endTarget = mTopSpinnerOffsetEnd + mOriginalOffsetTop;
+        } else {
+            endTarget = mTopSpinnerOffsetEnd;
+        }
+        setTopCircleViewTargetOffsetTopAndBottom(endTarget - mCurrentTargetOffsetTop);
+        mTopNotify = notify && !mDispatchRefreshOnRelease;
+        startTopScaleUpAnimation(mTopRefreshListener);
+        if (notify && mDispatchRefreshOnRelease) {
+            dispatchTopRefresh();
+        }
+    }
+
+    /**
+     * 设置是否开启触摸预测。开启后拖动时指示球不再停在最近一次触摸事件的位置，而是放在根据事件流外推出的、
+     * 手指在下一个vsync时的位置，弥补指示球落后手指的一帧。预测只影响拖动过程中的展示：预测位置不会越过刷新阈值
+     * 到真实位置的另一侧，松手时仍按真实位置决定是否触发刷新。只对直接拖动生效，嵌套滑动的距离由子View计算，不做预测
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+        mTouchPredictor.reset();
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictionEnabled;
+    }
+
+    /**
+     * 添加指示球状态监听，可用于根据拖动驱动视差Header、吸顶工具栏等效果，无需重新计算手势。
+     * 两端的状态、拖动进度或位移发生变化时回调，同一帧内最多回调一次
+     */
+    public void addOnPullStateListener(@NonNull OnPullStateListener listener) {
+        mPullStateDispatcher.addListener(listener);
+        invalidatePullState();
+    }
+
+    public void removeOnPullStateListener(@NonNull OnPullStateListener listener) {
+        mPullStateDispatcher.removeListener(listener);
+    }
+
+    /**
+     * @param edge {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+     * @return 指示球当前的状态，PULL_STATE_*
+     */
+    public int getPullState(int edge) {
+        if (edge == EDGE_TOP) {
+            if (mIsBeingDraggedTop || mTopViewNestedScrollDragging) {
+                return mTopPullDistance >= mTotalDragDistance ? PULL_STATE_ARMED : PULL_STATE_DRAGGING;
+            }
+            if (isAnimationRunning(mTopRunningAnimation)) {
+                return mTopRefreshing ? PULL_STATE_SETTLING : PULL_STATE_COLLAPSING;
+            }
+            return mTopRefreshing ? PULL_STATE_REFRESHING : PULL_STATE_IDLE;
+        }
+        if (mIsBeingDraggedBottom || mBottomViewNestedScrollDragging) {
+            return mBottomPullDistance >= mTotalDragDistance ? PULL_STATE_ARMED : PULL_STATE_DRAGGING;
+        }
+        if (isAnimationRunning(mBottomRunningAnimation)) {
+            return mBottomRefreshing ? PULL_STATE_SETTLING : PULL_STATE_COLLAPSING;
+        }
+        return mBottomRefreshing ? PULL_STATE_REFRESHING : PULL_STATE_IDLE;
+    }
+
+    /**
+     * @return 拖动进度：拖动中为拖动距离与刷新阈值的比例，达到1时进入{@link #PULL_STATE_ARMED}；
+     * 其余状态为指示球位移与悬垂位置位移的比例，刷新中为1
+     */
+    public float getPullFraction(int edge) {
+        if (edge == EDGE_TOP) {
+            if (mIsBeingDraggedTop || mTopViewNestedScrollDragging) {
+                return mTopPullDistance / mTotalDragDistance;
+            }
+            final int endTarget = mUsingCustomStart
+                    ? mTopSpinnerOffsetEnd : mTopSpinnerOffsetEnd + mOriginalOffsetTop;
+            final int holdDistance = endTarget - mOriginalOffsetTop;
+            return holdDistance > 0 ? (float) getPullOffset(EDGE_TOP) / holdDistance : 0;
+        }
+        if (mIsBeingDraggedBottom || mBottomViewNestedScrollDragging) {
+            return mBottomPullDistance / mTotalDragDistance;
+        }
+        return mBottomSpinnerOffsetEnd > 0 ? (float) getPullOffset(EDGE_BOTTOM) / mBottomSpinnerOffsetEnd : 0;
+    }
+
+    /**
+     * @return 指示球离开初始位置的距离，单位像素，顶部向下、底部向上为正
+     */
+    public int getPullOffset(int edge) {
+        if (edge == EDGE_TOP) {
+            return Math.max(0, mCurrentTargetOffsetTop - mOriginalOffsetTop);
+        }
+        return Math.max(0, mOriginalOffsetBottom - mCurrentTargetOffsetBottom);
+    }
+
+    /**
+     * 两端的状态可能发生了变化，安排在这一帧绘制之前分发给状态监听。detach期间不分发，attach时会补发
+     */
+    private void invalidatePullState() {
+        if (isAttachedToWindow()) {
+            mPullStateDispatcher.invalidate(mFrameClock);
+        }
+    }
+
+    /**
+     * 指定动画档位，{@link #ANIMATION_PROFILE_FULL}、{@link #ANIMATION_PROFILE_REDUCED}、{@link #ANIMATION_PROFILE_OFF}，
+     * 默认为{@link #ANIMATION_PROFILE_AUTO}：系统动画时长缩放为0时关闭动画，开启省电模式或设备温控达到中度及以上时
+     * 使用精简动画，其余情况使用完整动画。无论哪个档位，动画时长都会按系统的动画时长缩放调整
+     */
+    public void setAnimationProfile(int profile) {
+        if (profile < ANIMATION_PROFILE_AUTO || profile > ANIMATION_PROFILE_OFF) {
+            throw new IllegalArgumentException("Unknown animation profile: " + profile);
+        }
+        mAnimationProfileOverride = profile;
+        updateAnimationProfile();
+    }
+
+    /**
+     * @return 当前生效的动画档位，自动选择时返回选择的结果
+     */
+    public int getAnimationProfile() {
+        return mAnimationProfile;
+    }
+
+    /**
+     * 根据外部指定的档位或系统状态重新计算动画档位，刷新中的指示球立即按新档位调整旋转帧率
+     */
+    private void updateAnimationProfile() {
+        mAnimationProfile = mAnimationProfileOverride != ANIMATION_PROFILE_AUTO
+                ? mAnimationProfileOverride : mAnimationProfileMonitor.getProfile();
+        mAnimationDurationScale = mAnimationProfileMonitor.getDurationScale()
+                * (mAnimationProfile == ANIMATION_PROFILE_REDUCED ? REDUCED_DURATION_SCALE : 1f);
+        if (mTopRefreshing) {
+            mTopCircleView.setMinInvalidateInterval(getSpinnerFrameInterval());
+        }
+        if (mBottomRefreshing) {
+            mBottomCircleView.setMinInvalidateInterval(getSpinnerFrameInterval());
+        }
+    }
+
+    /**
+     * @return 当前档位下刷新中旋转动画两帧之间的最小间隔，0表示不限制
+     */
+    private long getSpinnerFrameInterval() {
+        return mAnimationProfile == ANIMATION_PROFILE_FULL ? 0 : REDUCED_SPINNER_FRAME_INTERVAL;
+    }
+
+    /**
+     * 设置顶部刷新策略，传入null则取消策略，每次下拉超过阈值都会回调onRefresh
+     */
+    public void setTopRefreshPolicy(@Nullable RefreshPolicy policy) {
+        mTopRefreshPolicy = policy;
+    }
+
+    @Nullable
+    public RefreshPolicy getTopRefreshPolicy() {
+        return mTopRefreshPolicy;
+    }
+
+    /**
+     * 设置刷新结束时使用的锚定器，见{@link #completeTopRefresh(int)}
+     */
+    public void setRefreshAnchor(@Nullable RefreshAnchor anchor) {
+        mRefreshAnchor = anchor;
+    }
+
+    @Nullable
+    public RefreshAnchor getRefreshAnchor() {
+        return mRefreshAnchor;
+    }
+
+    /**
+     * 顶部加载完成：由锚定器通知内容在顶部插入了insertedCount条数据，并保持当前可见的行不动，同时收起顶部指示球。
+     * 调用前外部需要先把数据插入到数据源中，但不要自己发出插入通知；通知、锚定和指示球的收起在同一帧内完成，
+     * 内容只需要布局一次。未设置锚定器时等同于setTopRefreshing(false)
+     *
+     * @param insertedCount 插入的数据条数，0表示没有新数据
+     */
+    public void completeTopRefresh(int insertedCount) {
+        if (mRefreshAnchor != null && insertedCount > 0) {
+            mRefreshAnchor.onTopItemsInserted(insertedCount);
+        }
+        setTopRefreshing(false);
+    }
+
+    /**
+     * 底部加载完成，与{@link #completeTopRefresh(int)}相同，新数据插入在内容的底部
+     */
+    public void completeBottomRefresh(int insertedCount) {
+        if (mRefreshAnchor != null && insertedCount > 0) {
+            mRefreshAnchor.onBottomItemsInserted(insertedCount);
+        }
+        setBottomRefreshing(false);
+    }
+
+    /**
+     * 设置底部是否已经没有更多数据。没有更多数据时上拉只让底部指示球以低透明度阻尼跟随，松手后直接弹回，
+     * 不会进入刷新状态，也不会回调onRefresh，预加载模式下同样不会提前回调；外部手动调用setBottomRefreshing(true)不受影响。
+     * 顶部刷新拿到新数据后，需要由外部调用setBottomEndReached(false)恢复上拉加载
+     */
+    public void setBottomEndReached(boolean endReached) {
+        mBottomEndReached.set(endReached, SystemClock.elapsedRealtime());
+        if (endReached && mBottomSpeculating) {
+            //预加载的结果就是没有更多数据，这次拖动松手时不再进入刷新状态
+            mBottomSpeculating = false;
+            mBottomLoadStartedAt = -1;
+        }
+    }
+
+    /**
+     * @return 底部是否处在没有更多数据状态，设置了退避时长且已经到期时返回false
+     */
+    public boolean isBottomEndReached() {
+        return mBottomEndReached.isEndReached(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * 上拉手势开始时确定这次手势是否按没有更多数据处理，退避到期的状态在这里解除
+     */
+    private void latchBottomEndReached() {
+        mBottomEndReached.latch(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * 设置没有更多数据状态的退避时长：进入该状态超过这个时长后，下一次上拉重新可以触发加载，适用于数据源会持续追加
+     * 新数据的场景。到期只在下一次上拉开始时检查，不占用定时器。小于等于0表示只能通过setBottomEndReached(false)解除，默认为0
+     */
+    public void setBottomEndReachedBackoff(long backoffMillis) {
+        mBottomEndReached.setBackoff(backoffMillis);
+    }
+
+    public long getBottomEndReachedBackoff() {
+        return mBottomEndReached.getBackoff();
+    }
+
+    /**
+     * 设置没有更多数据时，上拉超过刷新阈值松手的回调，可以在这里展示"没有更多了"之类的提示
+     */
+    public void setOnBottomEndReachedPullListener(@Nullable OnEndReachedPullListener listener) {
+        mBottomEndReachedPullListener = listener;
+    }
+
     /**
      * 设置底部指示器的刷新状态
      */
@@ -614,35 +1609,33 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         if (refreshing && mBottomRefreshing != refreshing) {
             // scale and show
             mBottomRefreshing = refreshing;
-            int endTarget = 0;
-            if (mUsingCustomStart) {
-                endTarget = mTopSpinnerOffsetEnd + mOriginalOffsetTop;
-            } else {
-                endTarget = mOriginalOffsetBottom - mBottomSpinnerOffsetEnd;
-            }
+            onBottomRefreshStarted();
+            //底部的悬垂位置只与底部原点有关，不受顶部自定义开始位置的影响
+            final int endTarget = mOriginalOffsetBottom - mBottomSpinnerOffsetEnd;
             setBottomCircleViewTargetOffsetTopAndBottom(endTarget - mCurrentTargetOffsetBottom);
-            mNotify = false;
+            mBottomNotify = false;
+            //外部手动开始的刷新，加载任务由外部在调用时开始
+            mBottomLoadStartedAt = mBottomRefreshStartedAt;
             startBottomScaleUpAnimation(mBottomToCorrectAnimationListener);
         } else {
             setBottomRefreshing(refreshing, false /* notify */);
         }
     }
 
-    private void startTopScaleUpAnimation(AnimationListener listener) {
+    private void startTopScaleUpAnimation(ClockAnimation.Listener listener) {
         mTopCircleView.setVisibility(View.VISIBLE);
-        mTopProgress.setAlpha(MAX_ALPHA);
-        mTopScaleAnimation = new Animation() {
+        mTopIndicator.setAlpha(MAX_ALPHA);
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 setTopViewScaleProgress(interpolatedTime);
             }
         };
-        mTopScaleAnimation.setDuration(mMediumAnimationDuration);
+        animation.setDuration(mMediumAnimationDuration);
         if (listener != null) {
-            mTopCircleView.setAnimationListener(listener);
+            mTopAnimationListener = listener;
         }
-        mTopCircleView.clearAnimation();
-        mTopCircleView.startAnimation(mTopScaleAnimation);
+        startTopAnimation(animation);
     }
 
     /**
@@ -650,21 +1643,20 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      *
      * @param listener 放大动画的监听
      */
-    private void startBottomScaleUpAnimation(AnimationListener listener) {
+    private void startBottomScaleUpAnimation(ClockAnimation.Listener listener) {
         mBottomCircleView.setVisibility(View.VISIBLE);
-        mBottomProgress.setAlpha(MAX_ALPHA);
-        mBottomScaleAnimation = new Animation() {
+        mBottomIndicator.setAlpha(MAX_ALPHA);
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 setBottomViewScaleProgress(interpolatedTime);
             }
         };
-        mBottomScaleAnimation.setDuration(mMediumAnimationDuration);
+        animation.setDuration(mMediumAnimationDuration);
         if (listener != null) {
-            mBottomCircleView.setAnimationListener(listener);
+            mBottomAnimationListener = listener;
         }
-        mBottomCircleView.clearAnimation();
-        mBottomCircleView.startAnimation(mBottomScaleAnimation);
+        startBottomAnimation(animation);
     }
 
     /**
@@ -684,12 +1676,21 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
 
     private void setTopRefreshing(boolean refreshing, final boolean notify) {
         if (mTopRefreshing != refreshing) {
-            mNotify = notify;
+            mTopNotify = notify;
             ensureTarget();
             mTopRefreshing = refreshing;
             if (mTopRefreshing) {
+                onTopRefreshStarted();
+                if (notify && mDispatchRefreshOnRelease) {
+                    //刷新一经确认就回调，不再等待回弹到悬垂位置的动画结束
+                    mTopNotify = false;
+                }
                 animateTopOffsetToCorrectPosition(mCurrentTargetOffsetTop, mTopRefreshListener);
+                if (notify && mDispatchRefreshOnRelease) {
+                    dispatchTopRefresh();
+                }
             } else {
+                onTopRefreshFinished();
                 startTopScaleDownAnimation(mTopRefreshListener);
             }
         }
@@ -704,13 +1705,26 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     private void setBottomRefreshing(boolean refreshing, final boolean notify) {
         if (mBottomRefreshing != refreshing) {
-            mNotify = notify;
+            mBottomNotify = notify;
             ensureTarget();
             mBottomRefreshing = refreshing;
             if (mBottomRefreshing) {
+                onBottomRefreshStarted();
+                if (notify && mDispatchRefreshOnRelease) {
+                    //刷新一经确认就回调，不再等待回弹到悬垂位置的动画结束
+                    mBottomNotify = false;
+                }
                 //若需要刷新，则将底部指示球弹回悬垂位置，开始旋转
                 animateBottomOffsetToCorrectPosition(mCurrentTargetOffsetBottom, mBottomToCorrectAnimationListener);
+                if (notify && mDispatchRefreshOnRelease) {
+                    dispatchBottomRefresh();
+                }
             } else {
+                removeCallbacks(mBottomRefreshWatchdog);
+                if (mBottomLoadStartedAt >= 0) {
+                    mBottomCompletionLatency.record(SystemClock.elapsedRealtime() - mBottomLoadStartedAt);
+                    mBottomLoadStartedAt = -1;
+                }
                 //若不需要刷新，则将底部指示球进行缩放动画，使其消失，并重置底部指示球的状态
                 startBottomScaleDownAnimation(mBottomToCorrectAnimationListener);
             }
@@ -718,66 +1732,70 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
     }
 
     //开始顶部指示球的缩小动画
-    void startTopScaleDownAnimation(AnimationListener listener) {
-        mTopScaleDownAnimation = new Animation() {
+    void startTopScaleDownAnimation(ClockAnimation.Listener listener) {
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 setTopViewScaleProgress(1 - interpolatedTime);
             }
         };
-        mTopScaleDownAnimation.setDuration(SCALE_DOWN_DURATION);
-        mTopCircleView.setAnimationListener(listener);
-        mTopCircleView.clearAnimation();
-        mTopCircleView.startAnimation(mTopScaleDownAnimation);
+        animation.setDuration(SCALE_DOWN_DURATION);
+        mTopAnimationListener = listener;
+        startTopAnimation(animation);
     }
 
     //开始底部指示球的缩小动画
-    void startBottomScaleDownAnimation(AnimationListener listener) {
-        mBottomScaleDownAnimation = new Animation() {
+    void startBottomScaleDownAnimation(ClockAnimation.Listener listener) {
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 setBottomViewScaleProgress(1 - interpolatedTime);
             }
         };
-        mBottomScaleDownAnimation.setDuration(SCALE_DOWN_DURATION);
-        mBottomCircleView.setAnimationListener(listener);
-        mBottomCircleView.clearAnimation();
-        mBottomCircleView.startAnimation(mBottomScaleDownAnimation);
+        animation.setDuration(SCALE_DOWN_DURATION);
+        mBottomAnimationListener = listener;
+        startBottomAnimation(animation);
     }
 
     //开始顶部指示球透明度变化为默认值动画（半透明）
     private void startTopProgressAlphaStartAnimation() {
-        mTopAlphaStartAnimation = startTopAlphaAnimation(mTopProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
+        mTopAlphaStartAnimation = startTopAlphaAnimation(mTopIndicator.getAlpha(), STARTING_PROGRESS_ALPHA);
     }
 
     //开始底部指示球透明度变化为默认值动画（半透明）
     private void startBottomProgressAlphaStartAnimation() {
-        mBottomAlphaStartAnimation = startBottomAlphaAnimation(mBottomProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
+        mBottomAlphaStartAnimation = startBottomAlphaAnimation(mBottomIndicator.getAlpha(), STARTING_PROGRESS_ALPHA);
     }
 
     //开始顶部指示球透明度全满动画（完全显式）
     private void startTopProgressAlphaMaxAnimation() {
-        mTopAlphaMaxAnimation = startTopAlphaAnimation(mTopProgress.getAlpha(), MAX_ALPHA);
+        mTopAlphaMaxAnimation = startTopAlphaAnimation(mTopIndicator.getAlpha(), MAX_ALPHA);
     }
 
     //开始底部指示球透明度全满动画（完全显式）
     private void startBottomProgressAlphaMaxAnimation() {
-        mBottomAlphaMaxAnimation = startBottomAlphaAnimation(mBottomProgress.getAlpha(), MAX_ALPHA);
+        mBottomAlphaMaxAnimation = startBottomAlphaAnimation(mBottomIndicator.getAlpha(), MAX_ALPHA);
     }
 
-    private Animation startTopAlphaAnimation(final int startingAlpha, final int endingAlpha) {
-        Animation alpha = new Animation() {
+    private ClockAnimation startTopAlphaAnimation(final int startingAlpha, final int endingAlpha) {
+        if (mAnimationProfile != ANIMATION_PROFILE_FULL) {
+            //精简和关闭动画的档位下不做透明度动画，直接设置目标透明度
+            mTopAnimationListener = null;
+            clearTopAnimation();
+            mTopIndicator.setAlpha(endingAlpha);
+            return null;
+        }
+        ClockAnimation alpha = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                mTopProgress.setAlpha(
+            protected void applyTransformation(float interpolatedTime) {
+                mTopIndicator.setAlpha(
                         (int) (startingAlpha + ((endingAlpha - startingAlpha) * interpolatedTime)));
             }
         };
         alpha.setDuration(ALPHA_ANIMATION_DURATION);
         // Clear out the previous animation listeners.
-        mTopCircleView.setAnimationListener(null);
-        mTopCircleView.clearAnimation();
-        mTopCircleView.startAnimation(alpha);
+        mTopAnimationListener = null;
+        startTopAnimation(alpha);
         return alpha;
     }
 
@@ -786,22 +1804,27 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      *
      * @param startingAlpha 起始透明度
      * @param endingAlpha   目标透明度
-     * @return 动画对象
+     * @return 动画对象，当前档位不做透明度动画时返回null
      */
-    private Animation startBottomAlphaAnimation(final int startingAlpha, final int endingAlpha) {
-        Animation alpha = new Animation() {
+    private ClockAnimation startBottomAlphaAnimation(final int startingAlpha, final int endingAlpha) {
+        if (mAnimationProfile != ANIMATION_PROFILE_FULL) {
+            mBottomAnimationListener = null;
+            clearBottomAnimation();
+            mBottomIndicator.setAlpha(endingAlpha);
+            return null;
+        }
+        ClockAnimation alpha = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                mBottomProgress.setAlpha(
+            protected void applyTransformation(float interpolatedTime) {
+                mBottomIndicator.setAlpha(
                         (int) (startingAlpha + ((endingAlpha - startingAlpha) * interpolatedTime)));
             }
         };
         //指示球的透明度动画的默认执行时间为300ms，动画过渡效果很快，如果想要动画更平滑，可以适当增大duration
         alpha.setDuration(ALPHA_ANIMATION_DURATION);
         // Clear out the previous animation listeners.
-        mBottomCircleView.setAnimationListener(null);
-        mBottomCircleView.clearAnimation();
-        mBottomCircleView.startAnimation(alpha);
+        mBottomAnimationListener = null;
+        startBottomAnimation(alpha);
         return alpha;
     }
 
@@ -811,7 +1834,8 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         if (mTarget == null) {
             for (int i = 0; i < getChildCount(); i++) {
                 View child = getChildAt(i);
-                if (!child.equals(mTopCircleView) && !child.equals(mBottomCircleView)) {
+                if (!child.equals(mTopCircleView) && !child.equals(mBottomCircleView)
+                        && child != mTopHeaderView && child != mBottomFooterView) {
                     mTarget = child;
                     break;
                 }
@@ -828,6 +1852,73 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         mTotalDragDistance = distance;
     }
 
+    /**
+     * 保存刷新状态和拖动阈值配置，屏幕旋转等配置变化重建后由{@link #onRestoreInstanceState(Parcelable)}恢复
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        final SavedState ss = new SavedState(super.onSaveInstanceState());
+        //新鲜期内的悬停没有正在进行的加载任务，不需要恢复
+        ss.mTopRefreshing = mTopRefreshing && !mTopFreshHolding;
+        ss.mBottomRefreshing = mBottomRefreshing;
+        ss.mTotalDragDistance = mTotalDragDistance;
+        ss.mTopSpinnerOffsetEnd = mTopSpinnerOffsetEnd;
+        ss.mBottomSpinnerOffsetEnd = mBottomSpinnerOffsetEnd;
+        ss.mCustomSlingshotDistance = mCustomSlingshotDistance;
+        return ss;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        mTotalDragDistance = ss.mTotalDragDistance;
+        mTopSpinnerOffsetEnd = ss.mTopSpinnerOffsetEnd;
+        mBottomSpinnerOffsetEnd = ss.mBottomSpinnerOffsetEnd;
+        mCustomSlingshotDistance = ss.mCustomSlingshotDistance;
+        //重建前的加载任务仍在进行中，指示球直接回到悬垂位置继续旋转，不播放放大动画，也不再回调onRefresh
+        if (ss.mTopRefreshing && !mTopRefreshing) {
+            restoreTopRefreshing();
+        }
+        if (ss.mBottomRefreshing && !mBottomRefreshing) {
+            restoreBottomRefreshing();
+        }
+    }
+
+    /**
+     * 将顶部指示球直接放到悬垂位置并开始旋转
+     */
+    private void restoreTopRefreshing() {
+        mTopRefreshing = true;
+        onTopRefreshStarted();
+        final int endTarget = mUsingCustomStart
+                ? mTopSpinnerOffsetEnd : mTopSpinnerOffsetEnd + mOriginalOffsetTop;
+        setTopCircleViewTargetOffsetTopAndBottom(endTarget - mCurrentTargetOffsetTop);
+        mTopCircleView.setVisibility(View.VISIBLE);
+        setTopViewScaleProgress(1f);
+        setTopColorViewAlpha(MAX_ALPHA);
+        startTopSpinnerAnimation();
+    }
+
+    /**
+     * 将底部指示球直接放到悬垂位置并开始旋转。恢复时通常还没有布局，底部原点仍为0，
+     * 首次布局时{@link #updateBottomOffsetsForHeight(int)}会把指示球平移到新高度下的悬垂位置
+     */
+    private void restoreBottomRefreshing() {
+        mBottomRefreshing = true;
+        onBottomRefreshStarted();
+        final int endTarget = mOriginalOffsetBottom - mBottomSpinnerOffsetEnd;
+        setBottomCircleViewTargetOffsetTopAndBottom(endTarget - mCurrentTargetOffsetBottom);
+        mBottomCircleView.setVisibility(View.VISIBLE);
+        setBottomViewScaleProgress(1f);
+        setBottomColorViewAlpha(MAX_ALPHA);
+        startBottomSpinnerAnimation();
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         final int width = getMeasuredWidth();
@@ -849,8 +1940,9 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
         int circleWidth = mTopCircleView.getMeasuredWidth();
         int circleHeight = mTopCircleView.getMeasuredHeight();
-        if (mOriginalOffsetBottom == 0) {
-            mOriginalOffsetBottom = mCurrentTargetOffsetBottom = height;
+        if (mOriginalOffsetBottom != height) {
+            //容器高度发生变化（首次布局、旋转屏幕、多窗口、软键盘等），增量修正底部指示球的原点及相关位置
+            updateBottomOffsetsForHeight(height);
         }
         //将顶部指示球布局在屏幕顶部
         mTopCircleView.layout((width / 2 - circleWidth / 2), mCurrentTargetOffsetTop,
@@ -859,6 +1951,31 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         //将底部指示球布局在屏幕底部
         mBottomCircleView.layout((width / 2 - circleWidth / 2), mCurrentTargetOffsetBottom,
                 (width / 2 + circleWidth / 2), mCurrentTargetOffsetBottom + circleHeight);
+
+        //Header、Footer固定在内容的后面，内容平移时露出
+        if (mTopHeaderView != null) {
+            mTopHeaderView.layout(childLeft, childTop, childLeft + childWidth,
+                    childTop + mTopHeaderView.getMeasuredHeight());
+        }
+        if (mBottomFooterView != null) {
+            mBottomFooterView.layout(childLeft, childTop + childHeight - mBottomFooterView.getMeasuredHeight(),
+                    childLeft + childWidth, childTop + childHeight);
+        }
+    }
+
+    /**
+     * 容器高度变化时，增量修正底部指示球的原始位置，不重置指示球，也不影响正在进行的刷新。
+     * 顶部指示球的原点和悬垂位置都是相对容器顶部计算的，不受高度变化影响，因此只需要处理底部指示球。
+     * 底部指示球的当前位置、进行中的位移动画起点都随原点平移同样的距离，这样正在刷新的指示球会停留在新的
+     * 悬垂位置继续旋转，正在执行的回弹动画也会落在新的终点上。首次布局时原点为0，同样适用这个规则。
+     *
+     * @param height 新的容器高度
+     */
+    private void updateBottomOffsetsForHeight(int height) {
+        final int delta = height - mOriginalOffsetBottom;
+        mOriginalOffsetBottom = height;
+        mCurrentTargetOffsetBottom += delta;
+        mBottomFrom += delta;
     }
 
     @Override
@@ -876,6 +1993,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                 getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.EXACTLY));
         mTopCircleView.measure(MeasureSpec.makeMeasureSpec(mCircleDiameter, MeasureSpec.EXACTLY),
                 MeasureSpec.makeMeasureSpec(mCircleDiameter, MeasureSpec.EXACTLY));
+        measureHeaderViews(getMeasuredWidth() - getPaddingLeft() - getPaddingRight());
         mCircleViewIndex = -1;
         // Get the index of the circleview.
         for (int index = 0; index < getChildCount(); index++) {
@@ -886,6 +2004,25 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         }
     }
 
+    /**
+     * 测量Header和Footer，高度由其自身决定。只在首次以及容器宽度变化时测量，拖动过程中内容只做平移，
+     * 不会触发重新测量和布局
+     */
+    private void measureHeaderViews(int width) {
+        if (width == mHeaderMeasuredWidth) {
+            return;
+        }
+        mHeaderMeasuredWidth = width;
+        final int widthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+        final int heightSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        if (mTopHeaderView != null) {
+            mTopHeaderView.measure(widthSpec, heightSpec);
+        }
+        if (mBottomFooterView != null) {
+            mBottomFooterView.measure(widthSpec, heightSpec);
+        }
+    }
+
     /**
      * Get the diameter of the progress circle that is displayed as part of the
      * swipe to refresh layout.
@@ -916,8 +2053,32 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      *
      * @param callback Callback that should be called when canChildScrollUp() is called.
      */
-    public void setOnChildScrollUpCallback(@Nullable OnChildScrollUpCallback callback) {
-        mChildScrollUpCallback = callback;
+    public void setOnChildScrollUpCallback(@Nullable OnChildScrollUpCallback callback) {
+        mChildScrollUpCallback = callback;
+    }
+
+    /**
+     * @return 子View是否还能继续向下滚动（即还没有滚动到底部），若子View是自定义View，可重写此方法，
+     * 或通过{@link #setOnChildScrollDownCallback(OnChildScrollDownCallback)}设置回调
+     */
+    public boolean canChildScrollDown() {
+        if (mChildScrollDownCallback != null) {
+            return mChildScrollDownCallback.canChildScrollDown(this, mTarget);
+        }
+        if (mTarget instanceof ListView) {
+            return ListViewCompat.canScrollList((ListView) mTarget, 1);
+        }
+        return mTarget.canScrollVertically(1);
+    }
+
+    /**
+     * 设置回调来代替{@link #canChildScrollDown()}的内部判断逻辑，与{@link #setOnChildScrollUpCallback(OnChildScrollUpCallback)}
+     * 对应，用于底部指示球
+     *
+     * @param callback 判断子View是否还能向下滚动的回调，传入null则恢复内部判断逻辑
+     */
+    public void setOnChildScrollDownCallback(@Nullable OnChildScrollDownCallback callback) {
+        mChildScrollDownCallback = callback;
     }
 
     @Override
@@ -933,31 +2094,37 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             mReturningToStart = false;
         }
 
-        if (!isEnabled() || mReturningToStart
-                //|| canChildScrollUp()
-                || mNestedScrollInProgress) {
+        //子View能否滚动需要区分方向，在startDragging中确定拖动方向后再判断
+        if (!isEnabled() || mReturningToStart || mNestedScrollInProgress) {
             // Fail fast if we're not in a state where a swipe is possible
             return false;
         }
 
         switch (action) {
             case MotionEvent.ACTION_DOWN:
-                if (!mTopRefreshing) {
-                    //若顶部指示球不处在刷新状态，手指落下时，将顶部指示球移动到初始位置上，准备响应后续的移动事件
-                    setTopCircleViewTargetOffsetTopAndBottom(0);
-                }
-                if (!mBottomRefreshing) {
-                    setBottomCircleViewTargetOffsetTopAndBottom(mOriginalOffsetBottom - mBottomCircleView.getTop());
+                //顶部指示球的位置在拖动时由moveTopSpinner重新计算，手指落下时无需移动
+                final int bottomOffset = mOriginalOffsetBottom - mBottomCircleView.getTop();
+                if (!mBottomRefreshing && bottomOffset != 0) {
+                    //若底部指示球不处在刷新状态且不在初始位置，将其移动到初始位置上，准备响应后续的移动事件
+                    setBottomCircleViewTargetOffsetTopAndBottom(bottomOffset);
                 }
                 mActivePointerId = ev.getPointerId(0);
-                mIsBeingDragged = false;
+                //新的手势开始，清除上一次手势遗留的拖动状态
+                mIsBeingDraggedTop = false;
+                mIsBeingDraggedBottom = false;
 
                 pointerIndex = ev.findPointerIndex(mActivePointerId);
                 if (pointerIndex < 0) {
                     return false;
                 }
-                //手指落下时，记录落下的y轴位置
+                //手指落下时，记录落下的x、y轴位置
+                mInitialDownX = ev.getX(pointerIndex);
                 mInitialDownY = ev.getY(pointerIndex);
+                mHorizontalGesture = false;
+                mTouchPredictor.reset();
+                mTopPullDistance = 0;
+                mBottomPullDistance = 0;
+                latchBottomEndReached();
                 break;
 
             case MotionEvent.ACTION_MOVE:
@@ -969,9 +2136,17 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                 if (pointerIndex < 0) {
                     return false;
                 }
+                if (mHorizontalGesture) {
+                    //已判定为横向手势，直接放行给子View或外层的横向容器，不再进入拖动逻辑
+                    return false;
+                }
                 final float y = ev.getY(pointerIndex);
+                if (mTouchPredictionEnabled) {
+                    //拦截之前的移动也需要记录，开始拖动时预测就已经有足够的采样
+                    mTouchPredictor.addMovement(ev, pointerIndex);
+                }
                 //判断是否需要拦截触摸事件
-                startDragging(y);
+                startDragging(ev.getX(pointerIndex), y);
                 break;
 
             case MotionEvent.ACTION_POINTER_UP:
@@ -980,12 +2155,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
 
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
-                mIsBeingDragged = false;
+                mIsBeingDraggedTop = false;
+                mIsBeingDraggedBottom = false;
                 mActivePointerId = INVALID_POINTER;
+                invalidatePullState();
                 break;
         }
 
-        return mIsBeingDragged;
+        return isBeingDragged();
     }
 
     @Override
@@ -1001,6 +2178,55 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         }
     }
 
+    // NestedScrollingParent3
+
+    @Override
+    public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type, @NonNull int[] consumed) {
+        if (type != ViewCompat.TYPE_TOUCH) {
+            return;
+        }
+        onNestedScrollInternal(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, consumed);
+    }
+
+    // NestedScrollingParent2
+
+    //指示球只跟随手指，惯性滑动（TYPE_NON_TOUCH）不参与，交给外层父容器和子View自行处理
+    @Override
+    public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes, int type) {
+        return type == ViewCompat.TYPE_TOUCH && onStartNestedScroll(child, target, axes);
+    }
+
+    @Override
+    public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes, int type) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            onNestedScrollAccepted(child, target, axes);
+        }
+    }
+
+    @Override
+    public void onStopNestedScroll(@NonNull View target, int type) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            onStopNestedScroll(target);
+        }
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type) {
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type,
+                mNestedScrollingV2ConsumedCompat);
+    }
+
+    @Override
+    public void onNestedPreScroll(@NonNull View target, int dx, int dy, @NonNull int[] consumed, int type) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            onNestedPreScroll(target, dx, dy, consumed);
+        }
+    }
+
+    // NestedScrollingParent
+
     //todo 处理嵌套滑动监听，兼容底部指示球的上拉功能
     @Override
     public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
@@ -1015,12 +2241,17 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
         // Dispatch up to the nested parent
         startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL);
-        mTotalUnconsumed = 0;
+        mTopTotalUnconsumed = 0;
+        mBottomTotalUnconsumed = 0;
+        mTopPullDistance = 0;
+        mBottomPullDistance = 0;
+        latchBottomEndReached();
         mNestedScrollInProgress = true;
     }
 
     /**
-     * 在子View消费滑动事件之前，会提前回调自身的消费动作给嵌套的ScrollParent
+     * 在子View消费滑动事件之前，会提前回调自身的消费动作给嵌套的ScrollParent。已经拉出的指示球先收回，
+     * 收回后剩余的滑动量再交给外层父容器
      *
      * @param target   内部触发嵌套滑动事件的NestedScrollChild
      * @param dx       子view还未消费的横向滑动偏移量
@@ -1031,29 +2262,31 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      */
     @Override
     public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
-        if (mTotalUnconsumed > 0) {
-            //若mTotalUnconsumed大于0，表示当前正处在嵌套滑动中
+        //若mTopTotalUnconsumed大于0，表示当前正处在嵌套滑动中
+        if (mTopTotalUnconsumed > 0) {
             if (dy > 0) {
                 //若当前嵌套滑动行为是向上滑动，需要判断顶部指示球是否已经在响应拖动了
                 if (mTopViewNestedScrollDragging) {
                     /*如果顶部指示球已经在响应嵌套滑动，那么此时向上滑动的嵌套滑动必须做出特殊处理，需要由Swipe
                     完全消费掉向上的滑动行为，因为若不全部消费掉，内部的View例如RecycleView就会进行列表的滚动，这与设计不符，我们
                     希望在顶部球消失之前，内部View都不要进行任何的滚动行为*/
-                    if (dy > mTotalUnconsumed) {
-                        /*若mTotalUnconsumed已经小于dy，此时说明顶部指示球已经马上就要滑动到顶部消失了，此时仅需要消耗它和dy的差值
-                        即可，然后此时可以将mTotalUnconsumed置为0了，因为已经不需要移动顶部指示球了，子View该开始响应上拉滚动行为了*/
-                        consumed[1] = dy - (int) mTotalUnconsumed;
-                        mTotalUnconsumed = 0;
+                    if (dy > mTopTotalUnconsumed) {
+                        /*若mTopTotalUnconsumed已经小于dy，此时说明顶部指示球已经马上就要滑动到顶部消失了，此时仅需要消耗它和dy的差值
+                        即可，然后此时可以将mTopTotalUnconsumed置为0了，因为已经不需要移动顶部指示球了，子View该开始响应上拉滚动行为了*/
+                        consumed[1] = dy - (int) mTopTotalUnconsumed;
+                        mTopTotalUnconsumed = 0;
                     } else {
-                        //否则就将mTotalUnconsumed的值减去dy，然后消费掉所有dy，表示父容器要完全消费本次上滑行为，让子View先不要上滑
-                        mTotalUnconsumed -= dy;
+                        //否则就将mTopTotalUnconsumed的值减去dy，然后消费掉所有dy，表示父容器要完全消费本次上滑行为，让子View先不要上滑
+                        mTopTotalUnconsumed -= dy;
                         //将整个dy都完全消耗，并通过consumed告知子View
                         consumed[1] = dy;
                     }
                     //移动顶部指示球
-                    moveTopSpinner(mTotalUnconsumed);
+                    moveTopSpinner(mTopTotalUnconsumed);
                 }
             }
+        }
+        if (mBottomTotalUnconsumed > 0) {
             if (dy < 0) {
                 //若当前嵌套滑动行为是向下滑动，需要判断底部指示球是否已经在响应拖动了
                 if (mBottomViewNestedScrollDragging) {
@@ -1061,28 +2294,27 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                     完全消费掉向下的滑动行为，因为若不全部消费掉，内部的View例如RecycleView就会进行列表的滚动，这与设计不符，我们
                     希望在底部球消失之前，内部View都不要进行任何的向下滚动行为*/
                     int absDy = Math.abs(dy);
-                    if (absDy > mTotalUnconsumed) {
-                        /*若mTotalUnconsumed已经小于dy，此时说明顶部指示球已经马上就要滑动到顶部消失了，此时仅需要消耗它和dy的差值
-                        即可，然后此时可以将mTotalUnconsumed置为0了，因为已经不需要移动顶部指示球了，子View该开始响应上拉滚动行为了*/
-                        consumed[1] = dy + (int) mTotalUnconsumed;
-                        mTotalUnconsumed = 0;
+                    if (absDy > mBottomTotalUnconsumed) {
+                        /*若mBottomTotalUnconsumed已经小于dy，此时说明顶部指示球已经马上就要滑动到顶部消失了，此时仅需要消耗它和dy的差值
+                        即可，然后此时可以将mBottomTotalUnconsumed置为0了，因为已经不需要移动顶部指示球了，子View该开始响应上拉滚动行为了*/
+                        consumed[1] = dy + (int) mBottomTotalUnconsumed;
+                        mBottomTotalUnconsumed = 0;
                     } else {
-                        //否则就将mTotalUnconsumed的值减去dy，然后消费掉所有dy，表示父容器要完全消费本次上滑行为，让子View先不要上滑
-                        mTotalUnconsumed += dy;
+                        //否则就将mBottomTotalUnconsumed的值减去dy，然后消费掉所有dy，表示父容器要完全消费本次上滑行为，让子View先不要上滑
+                        mBottomTotalUnconsumed += dy;
                         //将整个dy都完全消耗，并通过consumed告知子View
                         consumed[1] = dy;
                     }
                     //移动顶部指示球
-                    moveBottomSpinner(mTotalUnconsumed);
+                    moveBottomSpinner(mBottomTotalUnconsumed);
                 }
             }
         }
-        Log.d("################", "onNestedPreScroll dy : " + dy);
         // If a client layout is using a custom start position for the circle
         // view, they mean to hide it again before scrolling the child view
-        // If we get back to mTotalUnconsumed == 0 and there is more to go, hide
+        // If we get back to mTopTotalUnconsumed == 0 and there is more to go, hide
         // the circle so it isn't exposed if its blocking content is moved
-        if (mUsingCustomStart && dy > 0 && mTotalUnconsumed == 0
+        if (mUsingCustomStart && dy > 0 && mTopTotalUnconsumed == 0
                 && Math.abs(dy - consumed[1]) > 0) {
             mTopCircleView.setVisibility(View.GONE);
         }
@@ -1106,60 +2338,73 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         mNestedScrollInProgress = false;
         // Finish the spinner for nested scrolling if we ever consumed any
         // unconsumed nested scroll
-        if (mTotalUnconsumed > 0) {
-            if (mTopViewNestedScrollDragging) {
-                finishTopSpinner(mTotalUnconsumed);
-            }
-            if (mBottomViewNestedScrollDragging) {
-                finishBottomSpinner(mTotalUnconsumed);
-            }
-            mTotalUnconsumed = 0;
+        if (mTopViewNestedScrollDragging && mTopTotalUnconsumed > 0) {
+            finishTopSpinner(mTopTotalUnconsumed);
+        }
+        if (mBottomViewNestedScrollDragging && mBottomTotalUnconsumed > 0) {
+            finishBottomSpinner(mBottomTotalUnconsumed);
         }
+        mTopTotalUnconsumed = 0;
+        mBottomTotalUnconsumed = 0;
         mTopViewNestedScrollDragging = false;
         mBottomViewNestedScrollDragging = false;
+        invalidatePullState();
         // Dispatch up our nested parent
         stopNestedScroll();
     }
 
+    @Override
+    public void onNestedScroll(final View target, final int dxConsumed, final int dyConsumed,
+                               final int dxUnconsumed, final int dyUnconsumed) {
+        onNestedScrollInternal(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                mNestedScrollingV2ConsumedCompat);
+    }
+
     /**
-     * 响应子View的嵌套滑动核心函数
+     * 响应子View的嵌套滑动核心函数。子View未消费的滑动量先交给外层父容器，父容器消费后剩余的部分才用来移动指示球，
+     * 同一次滑动中外层的AppBarLayout展开和指示球拉出不会同时发生
      *
      * @param target       发送嵌套滑动事件的子View
      * @param dxConsumed   子View在横向已经消费的滑动偏移量，顺负逆正，即该值大于0表示自左向右滑动，小于0表示从右向左滑动
      * @param dyConsumed   子View在纵向已经消费的滑动偏移量，顺负逆正，即该值大于0表示自下向上滑动，小于0表示从上向下滑动
      * @param dxUnconsumed 子View在横向还未消费的滑动偏移量
      * @param dyUnconsumed 子View在纵向还未消费的滑动偏移量
+     * @param consumed     反向输入参数，累加父容器和指示球消费掉的滑动偏移量，告知子View
      */
-    @Override
-    public void onNestedScroll(final View target, final int dxConsumed, final int dyConsumed,
-                               final int dxUnconsumed, final int dyUnconsumed) {
+    private void onNestedScrollInternal(View target, int dxConsumed, int dyConsumed,
+                                        int dxUnconsumed, int dyUnconsumed, int[] consumed) {
         // Dispatch up to the nested parent first
+        final int consumedBeforeParents = consumed[1];
         dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
-                mParentOffsetInWindow);
+                mParentOffsetInWindow, ViewCompat.TYPE_TOUCH, consumed);
+        final int consumedByParents = consumed[1] - consumedBeforeParents;
+        final int unconsumedAfterParents = dyUnconsumed - consumedByParents;
 
-        /*当前需要响应的滑动量为子View在纵向未消费的滑动偏移量，例如内部view是RecycleView，那么当RecycleView被滑动到
+        /*当前需要响应的滑动量为子View和外层父容器都未消费的纵向滑动偏移量，例如内部view是RecycleView，那么当RecycleView被滑动到
         顶部时候，继续向下滑动RecycleView就不会再消费向下滑动的事件，而是通过dispatchNestedScroll将所有向下滑动的偏移量
-        传递给ScrollParent，此时我们就可以根据需要展示顶部指示球，并响应嵌套滑动事件*/
-        final int dy = dyUnconsumed + mParentOffsetInWindow[1];
-        Log.i("################", "onNestedScroll dy : " + dy);
-        Log.i("################", "onNestedScroll dyUnconsumed : " + dyUnconsumed);
-        Log.i("################", "onNestedScroll dyConsumed : " + dyConsumed);
+        传递给ScrollParent，外层的AppBarLayout完全展开之后，剩余的偏移量才用来展示顶部指示球，并响应嵌套滑动事件。
+        外层父容器实现了NestedScrollingParent3时以它返回的消费值为准，即使它消费了全部偏移量也不再移动指示球；
+        旧版父容器会被NestedScrollingChildHelper视为消费了全部偏移量，此时只能根据自身在窗口中的位移推算剩余的部分*/
+        final boolean guessFromOffset = !mNestedScrollingParentV3 && hasNestedScrollingParent()
+                && unconsumedAfterParents == 0;
+        final int dy = guessFromOffset
+                ? dyUnconsumed + mParentOffsetInWindow[1] : unconsumedAfterParents;
         if (dy < 0
             //&& !canChildScrollUp()
         ) {
             if (mTopRefreshing) return;
             //若dy小于0，说明子View有未消耗的向下滑动偏移量(即内部的列表控件已经滚动到顶了)，此时可以将滑动偏移量累加，并触发顶部指示球的移动
-            mTotalUnconsumed += Math.abs(dy);
-            Log.i("################", "onNestedScroll top scroll  : " + mTotalUnconsumed);
+            mTopTotalUnconsumed += Math.abs(dy);
             mTopViewNestedScrollDragging = true;
-            moveTopSpinner(mTotalUnconsumed);
+            moveTopSpinner(mTopTotalUnconsumed);
+            consumed[1] += unconsumedAfterParents;
         } else if (dy > 0) {
             if (mBottomRefreshing) return;
             //若dy大于0，说明子View有未消耗的向上滑动偏移量(即内部的列表控件已经滚动到底了)，此时可以将滑动偏移量累加，并触发底部部指示球的移动
-            mTotalUnconsumed += dy;
-            Log.i("################", "onNestedScroll bottom scroll : " + mTotalUnconsumed);
+            mBottomTotalUnconsumed += dy;
             mBottomViewNestedScrollDragging = true;
-            moveBottomSpinner(mTotalUnconsumed);
+            moveBottomSpinner(mBottomTotalUnconsumed);
+            consumed[1] += unconsumedAfterParents;
         }
     }
 
@@ -1177,7 +2422,26 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
 
     @Override
     public boolean startNestedScroll(int axes) {
-        return mNestedScrollingChildHelper.startNestedScroll(axes);
+        final boolean started = mNestedScrollingChildHelper.startNestedScroll(axes);
+        mNestedScrollingParentV3 = started && findNestedScrollingParent() instanceof NestedScrollingParent3;
+        return started;
+    }
+
+    /**
+     * NestedScrollingChildHelper没有公开它找到的父容器，这里按同样的顺序向上查找，
+     * 第一个已经接受了纵向嵌套滑动的祖先就是本次嵌套滑动的父容器
+     */
+    @Nullable
+    private ViewParent findNestedScrollingParent() {
+        ViewParent parent = getParent();
+        while (parent != null) {
+            if (parent instanceof ViewGroup
+                    && (((ViewGroup) parent).getNestedScrollAxes() & ViewCompat.SCROLL_AXIS_VERTICAL) != 0) {
+                return parent;
+            }
+            parent = parent.getParent();
+        }
+        return null;
     }
 
     @Override
@@ -1203,6 +2467,50 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                 dx, dy, consumed, offsetInWindow);
     }
 
+    // NestedScrollingChild2
+
+    @Override
+    public boolean startNestedScroll(int axes, int type) {
+        return type == ViewCompat.TYPE_TOUCH && startNestedScroll(axes);
+    }
+
+    @Override
+    public void stopNestedScroll(int type) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            stopNestedScroll();
+        }
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent(int type) {
+        return type == ViewCompat.TYPE_TOUCH && hasNestedScrollingParent();
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+                                        int dyUnconsumed, @Nullable int[] offsetInWindow, int type) {
+        return type == ViewCompat.TYPE_TOUCH && mNestedScrollingChildHelper.dispatchNestedScroll(
+                dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, offsetInWindow, type);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, @Nullable int[] consumed,
+                                           @Nullable int[] offsetInWindow, int type) {
+        return type == ViewCompat.TYPE_TOUCH && dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
+    }
+
+    // NestedScrollingChild3
+
+    @Override
+    public void dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+                                     int dyUnconsumed, @Nullable int[] offsetInWindow, int type,
+                                     @NonNull int[] consumed) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed,
+                    dyUnconsumed, offsetInWindow, type, consumed);
+        }
+    }
+
     @Override
     public boolean onNestedPreFling(View target, float velocityX,
                                     float velocityY) {
@@ -1225,17 +2533,17 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
     }
 
-    private boolean isAnimationRunning(Animation animation) {
-        return animation != null && animation.hasStarted() && !animation.hasEnded();
+    private boolean isAnimationRunning(ClockAnimation animation) {
+        return animation != null && animation.isRunning();
     }
 
     private void moveTopSpinner(float overscrollTop) {
-        mTopProgress.setArrowEnabled(true);
+        mTopPullDistance = Math.abs(overscrollTop);
+        invalidatePullState();
         //原始拖动百分比，拖动距离 / 最大滑动距离
         float originalDragPercent = Math.abs(overscrollTop / mTotalDragDistance);
         //拖动百分比最大为1
         float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
-        float adjustedPercent = (float) Math.max(dragPercent - .4, 0) * 5 / 3;
 
         float extraOS = Math.abs(overscrollTop) - mTotalDragDistance;
 
@@ -1264,34 +2572,45 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             setTopViewScaleProgress(Math.min(1f, overscrollTop / mTotalDragDistance));
         }
         if (overscrollTop < mTotalDragDistance) {
-            if (mTopProgress.getAlpha() > STARTING_PROGRESS_ALPHA
+            if (mTopIndicator.getAlpha() > STARTING_PROGRESS_ALPHA
                     && !isAnimationRunning(mTopAlphaStartAnimation)) {
                 // Animate the alpha
                 startTopProgressAlphaStartAnimation();
             }
+            if (mTopSpeculating) {
+                //拖回了阈值以下，取消已提前开始的加载
+                cancelTopSpeculativeRefresh();
+            }
         } else {
-            if (mTopProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mTopAlphaMaxAnimation)) {
+            if (mTopIndicator.getAlpha() < MAX_ALPHA && !isAnimationRunning(mTopAlphaMaxAnimation)) {
                 // Animate the alpha
                 startTopProgressAlphaMaxAnimation();
             }
+            if (mSpeculativeRefreshEnabled && !mTopSpeculating
+                    && (mTopRefreshPolicy == null || mTopRefreshPolicy.isStale())) {
+                //越过刷新阈值，不等松手就提前开始加载
+                mTopSpeculating = true;
+                dispatchTopRefresh();
+            }
         }
-        float strokeStart = adjustedPercent * .8f;
-        mTopProgress.setStartEndTrim(0f, Math.min(MAX_PROGRESS_ANGLE, strokeStart));
-        mTopProgress.setArrowScale(Math.min(1f, adjustedPercent));
-
-        float rotation = (-0.25f + .4f * adjustedPercent + tensionPercent * 2) * .5f;
-        mTopProgress.setProgressRotation(rotation);
+        mTopIndicator.onPull(dragPercent, tensionPercent);
         setTopCircleViewTargetOffsetTopAndBottom(targetY - mCurrentTargetOffsetTop);
     }
 
     private void moveBottomSpinner(float overscrollTop) {
-        mBottomProgress.setArrowEnabled(true);
+        if (mBottomEndReached.isLatched()) {
+            //没有更多数据，拖动距离按阻尼渐近于上限，永远达不到刷新阈值，透明度也保持在较低的值
+            final float limit = mTotalDragDistance * END_REACHED_PULL_LIMIT;
+            overscrollTop = Math.signum(overscrollTop) * limit
+                    * (1f - (float) Math.exp(-Math.abs(overscrollTop) / limit));
+        }
+        mBottomPullDistance = Math.abs(overscrollTop);
+        invalidatePullState();
         //原始拖动百分比，拖动距离 / 最大滑动距离
         float originalDragPercent = Math.abs(overscrollTop / mTotalDragDistance);
         //拖动百分比最大为1
         float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
 
-        float adjustedPercent = (float) Math.max(dragPercent - .4, 0) * 5 / 3;
         //拖动距离与最大滑动距离的差值
         float extraOS = Math.abs(overscrollTop) - mTotalDragDistance;
         //指示球的悬挂距离（即松手后指示球即将停留的旋转位置），若未显式设置，默认为指示球的最大滑动距离
@@ -1325,93 +2644,258 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
 
         if (Math.abs(overscrollTop) < mTotalDragDistance) {
             //若滑动距离小于最大拖动阈值，且底部指示球的透明度大于默认透明度，且底部指示球并未处在透明度缩小动画中
-            if (mBottomProgress.getAlpha() > STARTING_PROGRESS_ALPHA
+            if (mBottomIndicator.getAlpha() > STARTING_PROGRESS_ALPHA
                     && !isAnimationRunning(mBottomAlphaStartAnimation)) {
                 //开始透明度变小动画，目的当指示球未达到刷新阈值位置时，透明度必须是偏小的
                 startBottomProgressAlphaStartAnimation();
             }
+            if (mBottomSpeculating) {
+                //拖回了阈值以下，取消已提前开始的加载
+                cancelBottomSpeculativeRefresh();
+            }
         } else {
             /*若滑动距离大于最大拖动阈值，此时透明度需要拉满，目的是当指示球被滑动到超过刷新阈值位置时，
             需要通过透明度改变提示用户已经达到可刷新位置*/
-            if (mBottomProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mBottomAlphaMaxAnimation)) {
+            if (mBottomIndicator.getAlpha() < MAX_ALPHA && !isAnimationRunning(mBottomAlphaMaxAnimation)) {
                 //如果透明度没有到最大，且并没有透明度变大动画正在执行，那么就执行透明度变大动画
                 startBottomProgressAlphaMaxAnimation();
             }
+            if (mSpeculativeRefreshEnabled && !mBottomSpeculating) {
+                //越过刷新阈值，不等松手就提前开始加载
+                mBottomSpeculating = true;
+                dispatchBottomRefresh();
+            }
         }
-        float strokeStart = adjustedPercent * .8f;
-        mBottomProgress.setStartEndTrim(0f, Math.min(MAX_PROGRESS_ANGLE, strokeStart));
-        mBottomProgress.setArrowScale(Math.min(1f, adjustedPercent));
-
-        float rotation = (-0.25f + .4f * adjustedPercent + tensionPercent * 2) * .5f;
-        mBottomProgress.setProgressRotation(rotation);
+        mBottomIndicator.onPull(dragPercent, tensionPercent);
         setBottomCircleViewTargetOffsetTopAndBottom(targetY - mCurrentTargetOffsetBottom);
     }
 
+    /**
+     * 顶部刷新结束，若不是新鲜期内的悬停，则记录数据刷新完成的时间
+     */
+    private void onTopRefreshFinished() {
+        removeCallbacks(mTopRefreshWatchdog);
+        if (mTopLoadStartedAt >= 0) {
+            mTopCompletionLatency.record(SystemClock.elapsedRealtime() - mTopLoadStartedAt);
+            mTopLoadStartedAt = -1;
+        }
+        if (mTopFreshHolding) {
+            removeCallbacks(mTopFreshHoldCallback);
+            mTopFreshHolding = false;
+        } else if (mTopRefreshPolicy != null && !mTopRefreshTimingOut) {
+            mTopRefreshPolicy.markRefreshed();
+        }
+    }
+
     private void finishTopSpinner(float overscrollTop) {
         if (overscrollTop > mTotalDragDistance) {
-            setTopRefreshing(true, true /* notify */);
-        } else {
-            // cancel refresh
-            mTopRefreshing = false;
-            mTopProgress.setStartEndTrim(0f, 0f);
-            AnimationListener listener = null;
-            if (!mScale) {
-                listener = new AnimationListener() {
-
-                    @Override
-                    public void onAnimationStart(Animation animation) {
-                    }
-
-                    @Override
-                    public void onAnimationEnd(Animation animation) {
-                        if (!mScale) {
-                            startTopScaleDownAnimation(null);
-                        }
-                    }
+            if (mTopSpeculating) {
+                //预加载模式下已经回调过onRefresh，这里只需要让指示球进入刷新状态
+                mTopSpeculating = false;
+                setTopRefreshing(true, false /* notify */);
+                return;
+            }
+            if (mTopRefreshPolicy == null || mTopRefreshPolicy.isStale()) {
+                setTopRefreshing(true, true /* notify */);
+                return;
+            }
+            final long holdDuration = mTopRefreshPolicy.getFreshHoldDuration();
+            if (holdDuration > 0) {
+                //数据仍在新鲜期内，指示球照常悬停旋转一小段时间作为反馈，但不回调onRefresh，省去一次网络请求和列表刷新
+                //先标记悬停，悬停期间没有加载任务，不需要检查超时
+                mTopFreshHolding = true;
+                setTopRefreshing(true, false /* notify */);
+                postDelayed(mTopFreshHoldCallback, ANIMATE_TO_TRIGGER_DURATION + holdDuration);
+                return;
+            }
+        }
+        cancelTopSpinner();
+    }
 
-                    @Override
-                    public void onAnimationRepeat(Animation animation) {
+    /**
+     * 未达到刷新阈值，将顶部指示球弹回初始位置
+     */
+    private void cancelTopSpinner() {
+        if (mTopSpeculating) {
+            cancelTopSpeculativeRefresh();
+        }
+        // cancel refresh
+        mTopRefreshing = false;
+        mTopIndicator.onPullCancelled();
+        ClockAnimation.Listener listener = null;
+        if (!mScale) {
+            listener = new ClockAnimation.Listener() {
+                @Override
+                public void onAnimationEnd() {
+                    if (!mScale) {
+                        startTopScaleDownAnimation(null);
                     }
-
-                };
-            }
-            animateTopOffsetToStartPosition(mCurrentTargetOffsetTop, listener);
-            mTopProgress.setArrowEnabled(false);
+                }
+            };
         }
+        animateTopOffsetToStartPosition(mCurrentTargetOffsetTop, listener);
     }
 
     //手指抬起后，根据滑动距离（滑动距离*滑动比例.5f）决定是否要触发底部指示球持续刷新逻辑
     private void finishBottomSpinner(float overscrollTop) {
+        if (mBottomEndReached.isLatched()) {
+            //没有更多数据，直接弹回，不进入刷新流程；拖动超过了刷新阈值时通知外部展示提示
+            if (overscrollTop > mTotalDragDistance && mBottomEndReachedPullListener != null) {
+                mBottomEndReachedPullListener.onEndReachedPull();
+            }
+            overscrollTop = 0;
+        }
         if (overscrollTop > mTotalDragDistance) {
             //若滑动距离大于拖拽距离阈值，达到可触发刷新逻辑位置，先让底部指示球滑动悬垂位置，再持续旋转表示刷新中
-            setBottomRefreshing(true, true /* notify */);
+            //预加载模式下已经回调过onRefresh，不再重复回调
+            final boolean notify = !mBottomSpeculating;
+            mBottomSpeculating = false;
+            setBottomRefreshing(true, notify);
         } else {
+            if (mBottomSpeculating) {
+                cancelBottomSpeculativeRefresh();
+            }
             //若滑动距离小于拖拽距离阈值，则认为未达到刷新位置，将底部指示球弹回底部
             mBottomRefreshing = false;
-            mBottomProgress.setStartEndTrim(0f, 0f);
-            AnimationListener listener = null;
+            mBottomIndicator.onPullCancelled();
+            ClockAnimation.Listener listener = null;
             if (!mScale) {
-                listener = new AnimationListener() {
-
-                    @Override
-                    public void onAnimationStart(Animation animation) {
-                    }
-
+                listener = new ClockAnimation.Listener() {
                     @Override
-                    public void onAnimationEnd(Animation animation) {
+                    public void onAnimationEnd() {
                         if (!mScale) {
                             startBottomScaleDownAnimation(null);
                         }
                     }
-
-                    @Override
-                    public void onAnimationRepeat(Animation animation) {
-                    }
-
                 };
             }
             animateBottomOffsetToStartPosition(mCurrentTargetOffsetBottom, listener);
-            mBottomProgress.setArrowEnabled(false);
+        }
+    }
+
+    /**
+     * 顶部进入刷新状态，记录开始时间并开始检查超时
+     */
+    private void onTopRefreshStarted() {
+        mTopRefreshStartedAt = SystemClock.elapsedRealtime();
+        armTopRefreshWatchdog();
+    }
+
+    /**
+     * 底部进入刷新状态，记录开始时间并开始检查超时
+     */
+    private void onBottomRefreshStarted() {
+        mBottomRefreshStartedAt = SystemClock.elapsedRealtime();
+        armBottomRefreshWatchdog();
+    }
+
+    /**
+     * 按剩余时长post顶部的超时检查。只有正在刷新且attach到窗口时才会post，没有刷新时不占用任何定时器
+     */
+    private void armTopRefreshWatchdog() {
+        removeCallbacks(mTopRefreshWatchdog);
+        if (mTopRefreshTimeout > 0 && mTopRefreshing && !mTopFreshHolding && isAttachedToWindow()) {
+            final long elapsed = SystemClock.elapsedRealtime() - mTopRefreshStartedAt;
+            postDelayed(mTopRefreshWatchdog, Math.max(0, mTopRefreshTimeout - elapsed));
+        }
+    }
+
+    /**
+     * 按剩余时长post底部的超时检查
+     */
+    private void armBottomRefreshWatchdog() {
+        removeCallbacks(mBottomRefreshWatchdog);
+        if (mBottomRefreshTimeout > 0 && mBottomRefreshing && isAttachedToWindow()) {
+            final long elapsed = SystemClock.elapsedRealtime() - mBottomRefreshStartedAt;
+            postDelayed(mBottomRefreshWatchdog, Math.max(0, mBottomRefreshTimeout - elapsed));
+        }
+    }
+
+    /**
+     * 顶部刷新超时：收起指示球，计数并回调超时监听
+     */
+    private void onTopRefreshTimeout() {
+        if (!mTopRefreshing) {
+            return;
+        }
+        final long elapsed = SystemClock.elapsedRealtime() - mTopRefreshStartedAt;
+        mTopRefreshTimeoutCount++;
+        Log.w(LOG_TAG, "Top refresh timed out after " + elapsed + "ms");
+        //超时收起不是加载完成，不记录到耗时统计中
+        mTopLoadStartedAt = -1;
+        mTopRefreshTimingOut = true;
+        setTopRefreshing(false);
+        mTopRefreshTimingOut = false;
+        if (mRefreshTimeoutListener != null) {
+            mRefreshTimeoutListener.onRefreshTimeout(EDGE_TOP, elapsed);
+        }
+    }
+
+    /**
+     * 底部刷新超时：收起指示球，计数并回调超时监听
+     */
+    private void onBottomRefreshTimeout() {
+        if (!mBottomRefreshing) {
+            return;
+        }
+        final long elapsed = SystemClock.elapsedRealtime() - mBottomRefreshStartedAt;
+        mBottomRefreshTimeoutCount++;
+        Log.w(LOG_TAG, "Bottom refresh timed out after " + elapsed + "ms");
+        mBottomLoadStartedAt = -1;
+        setBottomRefreshing(false);
+        if (mRefreshTimeoutListener != null) {
+            mRefreshTimeoutListener.onRefreshTimeout(EDGE_BOTTOM, elapsed);
+        }
+    }
+
+    /**
+     * 回调顶部onRefresh
+     */
+    private void dispatchTopRefresh() {
+        final long now = SystemClock.elapsedRealtime();
+        //预加载模式下拖动中途回调时还没有触发刷新，不计入触发到回调的耗时
+        if (mTopRefreshing) {
+            mTopDispatchLatency.record(now - mTopRefreshStartedAt);
+        }
+        mTopLoadStartedAt = now;
+        if (mTopListener != null) {
+            mTopListener.onRefresh();
+        }
+    }
+
+    /**
+     * 回调底部onRefresh
+     */
+    private void dispatchBottomRefresh() {
+        final long now = SystemClock.elapsedRealtime();
+        if (mBottomRefreshing) {
+            mBottomDispatchLatency.record(now - mBottomRefreshStartedAt);
+        }
+        mBottomLoadStartedAt = now;
+        if (mBottomListener != null) {
+            mBottomListener.onRefresh();
+        }
+    }
+
+    /**
+     * 取消顶部指示球已提前开始的加载
+     */
+    private void cancelTopSpeculativeRefresh() {
+        mTopSpeculating = false;
+        mTopLoadStartedAt = -1;
+        if (mTopCancelListener != null) {
+            mTopCancelListener.onRefreshCancelled();
+        }
+    }
+
+    /**
+     * 取消底部指示球已提前开始的加载
+     */
+    private void cancelBottomSpeculativeRefresh() {
+        mBottomSpeculating = false;
+        mBottomLoadStartedAt = -1;
+        if (mBottomCancelListener != null) {
+            mBottomCancelListener.onRefreshCancelled();
         }
     }
 
@@ -1424,9 +2908,8 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             mReturningToStart = false;
         }
 
-        if (!isEnabled() || mReturningToStart
-                //|| canChildScrollUp()
-                || mNestedScrollInProgress) {
+        //子View能否滚动需要区分方向，在startDragging中确定拖动方向后再判断
+        if (!isEnabled() || mReturningToStart || mNestedScrollInProgress) {
             // Fail fast if we're not in a state where a swipe is possible
             return false;
         }
@@ -1434,7 +2917,12 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         switch (action) {
             case MotionEvent.ACTION_DOWN:
                 mActivePointerId = ev.getPointerId(0);
-                mIsBeingDragged = false;
+                mIsBeingDraggedTop = false;
+                mIsBeingDraggedBottom = false;
+                mTouchPredictor.reset();
+                mTopPullDistance = 0;
+                mBottomPullDistance = 0;
+                latchBottomEndReached();
                 break;
 
             case MotionEvent.ACTION_MOVE: {
@@ -1444,11 +2932,17 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                     return false;
                 }
 
+                if (mHorizontalGesture) {
+                    return false;
+                }
                 final float y = ev.getY(pointerIndex);
+                if (mTouchPredictionEnabled) {
+                    mTouchPredictor.addMovement(ev, pointerIndex);
+                }
                 //开始拖动
-                startDragging(y);
+                startDragging(ev.getX(pointerIndex), y);
                 //若拖动函数判断当前需要拖动进度指示球
-                if (mIsBeingDragged) {
+                if (isBeingDragged()) {
                     //若当前需要响应拖动的是顶部指示球
                     if (mIsBeingDraggedTop) {
                         /*顶部指示球需要响应的偏移量，等于 (触摸位置 - 初始触摸位置) * 0.5，
@@ -1457,7 +2951,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                         //若当前触摸位置没有低于开始滑动的初始位置（若低于初始位置，表示此时顶部指示球已不再显示在屏幕上）
                         if (overScrollTop > 0) {
                             //根据手指偏移量移动顶部指示球
-                            moveTopSpinner(overScrollTop);
+                            moveTopSpinner(predictOverscroll(overScrollTop));
                         } else {
                             return false;
                         }
@@ -1467,7 +2961,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                         final float overScrollBottom = (y - mInitialMotionY) * DRAG_RATE;
                         if (overScrollBottom < 0) {
                             //根据手指偏移量移动底部指示球
-                            moveBottomSpinner(overScrollBottom);
+                            moveBottomSpinner(predictOverscroll(overScrollBottom));
                         } else {
                             return false;
                         }
@@ -1483,6 +2977,8 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                     return false;
                 }
                 mActivePointerId = ev.getPointerId(pointerIndex);
+                //跟踪的手指变了，之前的采样不再连续
+                mTouchPredictor.reset();
                 break;
             }
 
@@ -1497,10 +2993,9 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                     return false;
                 }
 
-                if (mIsBeingDragged) {
+                if (isBeingDragged()) {
                     final float y = ev.getY(pointerIndex);
                     final float overscrollTop = (y - mInitialMotionY) * DRAG_RATE;
-                    mIsBeingDragged = false;
                     if (mIsBeingDraggedTop) {
                         mIsBeingDraggedTop = false;
                         finishTopSpinner(overscrollTop);
@@ -1514,6 +3009,20 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
                 return false;
             }
             case MotionEvent.ACTION_CANCEL:
+                //手势被取消，不会触发刷新，取消已提前开始的加载，并将正在拖动的指示球弹回，另一端的刷新不受影响
+                if (mIsBeingDraggedTop) {
+                    mIsBeingDraggedTop = false;
+                    cancelTopSpinner();
+                } else if (mTopSpeculating) {
+                    cancelTopSpeculativeRefresh();
+                }
+                if (mIsBeingDraggedBottom) {
+                    mIsBeingDraggedBottom = false;
+                    finishBottomSpinner(0);
+                } else if (mBottomSpeculating) {
+                    cancelBottomSpeculativeRefresh();
+                }
+                mActivePointerId = INVALID_POINTER;
                 return false;
         }
 
@@ -1525,36 +3034,89 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         if (yDiff > mTouchSlop && !mIsBeingDragged) {
             mInitialMotionY = mInitialDownY + mTouchSlop;
             mIsBeingDragged = true;
-            mTopProgress.setAlpha(STARTING_PROGRESS_ALPHA);
+            mTopIndicator.setAlpha(STARTING_PROGRESS_ALPHA);
         }
     }*/
 
+    /**
+     * 开启触摸预测时，将根据真实触摸位置计算出的指示球偏移量替换为根据预测位置计算的偏移量。
+     * 预测值不会越过原点，也不会越过刷新阈值到真实偏移量的另一侧，指示球展示的“松手是否会刷新”始终与真实位置一致
+     *
+     * @param overscroll 根据真实触摸位置计算出的偏移量，顶部为正，底部为负
+     */
+    private float predictOverscroll(float overscroll) {
+        if (!mTouchPredictionEnabled) {
+            return overscroll;
+        }
+        //当前帧的内容会在下一个vsync时上屏
+        final long nextVsync = AnimationUtils.currentAnimationTimeMillis() + Math.round(mFrameIntervalMillis);
+        final float predictedY = mTouchPredictor.predictY(nextVsync);
+        if (Float.isNaN(predictedY)) {
+            return overscroll;
+        }
+        final float predicted = (predictedY - mInitialMotionY) * DRAG_RATE;
+        if (predicted * overscroll <= 0) {
+            return 0;
+        }
+        float magnitude = Math.abs(predicted);
+        if (Math.abs(overscroll) < mTotalDragDistance) {
+            magnitude = Math.min(magnitude, Math.nextAfter(mTotalDragDistance, 0));
+        } else {
+            magnitude = Math.max(magnitude, mTotalDragDistance);
+        }
+        return Math.copySign(magnitude, overscroll);
+    }
+
+    /**
+     * 当前手势是否正在拖动某一端的指示球
+     */
+    private boolean isBeingDragged() {
+        return mIsBeingDraggedTop || mIsBeingDraggedBottom;
+    }
+
     /**
      * 开始拖动行为
      *
+     * @param x 触摸事件的x轴坐标
      * @param y 触摸事件的y轴坐标
      */
-    private void startDragging(float y) {
+    private void startDragging(float x, float y) {
+        if (isBeingDragged() || mHorizontalGesture) {
+            return;
+        }
         //手指移动时，移动距离的差值
+        final float xDiff = x - mInitialDownX;
         final float yDiff = y - mInitialDownY;
-        //若移动距离大于最小移动阈值，且当前指示器拖动标志位还为false
-        if (Math.abs(yDiff) > mTouchSlop && !mIsBeingDragged) {
+        /*轴向锁定：手势方向与竖直方向的夹角超过VERTICAL_DRAG_MAX_ANGLE时判定为横向手势（包括斜向滑动），
+        本次手势剩余的事件都不再进入拖动逻辑，留给ViewPager2、横向列表等横向容器处理*/
+        if (Math.abs(xDiff) > mTouchSlop || Math.abs(yDiff) > mTouchSlop) {
+            if (Math.abs(xDiff) > Math.abs(yDiff) * VERTICAL_DRAG_MAX_SLOPE) {
+                mHorizontalGesture = true;
+                return;
+            }
+        }
+        //若竖直移动距离大于最小移动阈值，开始判断是否需要拖动指示球
+        if (Math.abs(yDiff) > mTouchSlop) {
+            /*只有子View已经滚动到对应方向的边缘时才可能拖动指示球，子View还能滚动时直接返回，
+            交给子View处理，不触碰任何指示球相关的逻辑*/
+            if (mTarget == null || (yDiff > 0 ? canChildScrollUp() : canChildScrollDown())) {
+                return;
+            }
             //首次移动位置，为手指落下位置+最小移动阈值
             mInitialMotionY = mInitialDownY + mTouchSlop;
 
+            //每一端只看自己的刷新状态，另一端正在刷新时仍然可以拖动
             if (yDiff > 0) {
-                //向下滑动，设置顶部指示球Progress的透明度，准备开始响应下拉滑动
-                mTopProgress.setAlpha(STARTING_PROGRESS_ALPHA);
                 if (!mTopRefreshing) {
+                    //向下滑动，设置顶部指示球Progress的透明度，准备开始响应下拉滑动
+                    mTopIndicator.setAlpha(STARTING_PROGRESS_ALPHA);
                     mIsBeingDraggedTop = true;
-                    mIsBeingDragged = true;
                 }
             } else {
                 if (!mBottomRefreshing) {
                     //向上滑动，设置底部指示球Progress的透明度，准备开始响应上拉滑动
-                    mBottomProgress.setAlpha(STARTING_PROGRESS_ALPHA);
+                    mBottomIndicator.setAlpha(STARTING_PROGRESS_ALPHA);
                     mIsBeingDraggedBottom = true;
-                    mIsBeingDragged = true;
                 }
             }
         }
@@ -1566,16 +3128,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * @param from     开始位置
      * @param listener 位移动画监听
      */
-    private void animateTopOffsetToCorrectPosition(int from, AnimationListener listener) {
+    private void animateTopOffsetToCorrectPosition(int from, ClockAnimation.Listener listener) {
         mTopFrom = from;
-        mTopAnimateToCorrectPosition.reset();
         mTopAnimateToCorrectPosition.setDuration(ANIMATE_TO_TRIGGER_DURATION);
         mTopAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
         if (listener != null) {
-            mTopCircleView.setAnimationListener(listener);
+            mTopAnimationListener = listener;
         }
-        mTopCircleView.clearAnimation();
-        mTopCircleView.startAnimation(mTopAnimateToCorrectPosition);
+        startTopAnimation(mTopAnimateToCorrectPosition);
     }
 
     /**
@@ -1584,32 +3144,28 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * @param from     开始位置
      * @param listener 位移动画监听
      */
-    private void animateBottomOffsetToCorrectPosition(int from, AnimationListener listener) {
+    private void animateBottomOffsetToCorrectPosition(int from, ClockAnimation.Listener listener) {
         mBottomFrom = from;
-        mBottomAnimateToCorrectPosition.reset();
         mBottomAnimateToCorrectPosition.setDuration(ANIMATE_TO_TRIGGER_DURATION);
         mBottomAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
         if (listener != null) {
-            mBottomCircleView.setAnimationListener(listener);
+            mBottomAnimationListener = listener;
         }
-        mBottomCircleView.clearAnimation();
-        mBottomCircleView.startAnimation(mBottomAnimateToCorrectPosition);
+        startBottomAnimation(mBottomAnimateToCorrectPosition);
     }
 
-    private void animateTopOffsetToStartPosition(int from, AnimationListener listener) {
+    private void animateTopOffsetToStartPosition(int from, ClockAnimation.Listener listener) {
         if (mScale) {
             // Scale the item back down
             startTopScaleDownReturnToStartAnimation(from, listener);
         } else {
             mTopFrom = from;
-            mAnimateTopToStartPosition.reset();
             mAnimateTopToStartPosition.setDuration(ANIMATE_TO_START_DURATION);
             mAnimateTopToStartPosition.setInterpolator(mDecelerateInterpolator);
             if (listener != null) {
-                mTopCircleView.setAnimationListener(listener);
+                mTopAnimationListener = listener;
             }
-            mTopCircleView.clearAnimation();
-            mTopCircleView.startAnimation(mAnimateTopToStartPosition);
+            startTopAnimation(mAnimateTopToStartPosition);
         }
     }
 
@@ -1620,27 +3176,25 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * @param from     开始动画的位置
      * @param listener 动画监听
      */
-    private void animateBottomOffsetToStartPosition(int from, AnimationListener listener) {
+    private void animateBottomOffsetToStartPosition(int from, ClockAnimation.Listener listener) {
         if (mScale) {
             //当缩放标志位开启时，指示球不仅仅要回到初始位置，同时还要不停的缩小
             startBottomScaleDownReturnToStartAnimation(from, listener);
         } else {
             mBottomFrom = from;
-            mAnimateBottomToStartPosition.reset();
             mAnimateBottomToStartPosition.setDuration(ANIMATE_TO_START_DURATION);
             mAnimateBottomToStartPosition.setInterpolator(mDecelerateInterpolator);
             if (listener != null) {
-                mBottomCircleView.setAnimationListener(listener);
+                mBottomAnimationListener = listener;
             }
-            mBottomCircleView.clearAnimation();
-            mBottomCircleView.startAnimation(mAnimateBottomToStartPosition);
+            startBottomAnimation(mAnimateBottomToStartPosition);
         }
     }
 
     //顶部指示球若拉动超过悬垂阈值，则会触发当前动画位移到悬垂位置
-    private final Animation mTopAnimateToCorrectPosition = new Animation() {
+    private final ClockAnimation mTopAnimateToCorrectPosition = new ClockAnimation() {
         @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
+        protected void applyTransformation(float interpolatedTime) {
             int targetTop = 0;
             int endTarget = 0;
             if (!mUsingCustomStart) {
@@ -1651,14 +3205,14 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             targetTop = (mTopFrom + (int) ((endTarget - mTopFrom) * interpolatedTime));
             int offset = targetTop - mTopCircleView.getTop();
             setTopCircleViewTargetOffsetTopAndBottom(offset);
-            mTopProgress.setArrowScale(1 - interpolatedTime);
+            mTopIndicator.onSettle(interpolatedTime);
         }
     };
 
     //底部指示球若拉动超过悬垂阈值，则会触发当前动画位移到悬垂位置
-    private final Animation mBottomAnimateToCorrectPosition = new Animation() {
+    private final ClockAnimation mBottomAnimateToCorrectPosition = new ClockAnimation() {
         @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
+        protected void applyTransformation(float interpolatedTime) {
             int targetTop = 0;
             int endTarget = 0;
 
@@ -1672,7 +3226,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             targetTop = (mBottomFrom + (int) ((endTarget - mBottomFrom) * interpolatedTime));
             int offset = targetTop - mBottomCircleView.getTop();
             setBottomCircleViewTargetOffsetTopAndBottom(offset);
-            mBottomProgress.setArrowScale(1 - interpolatedTime);
+            mBottomIndicator.onSettle(interpolatedTime);
         }
     };
 
@@ -1701,38 +3255,37 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         setBottomCircleViewTargetOffsetTopAndBottom(offset);
     }
 
-    private final Animation mAnimateTopToStartPosition = new Animation() {
+    private final ClockAnimation mAnimateTopToStartPosition = new ClockAnimation() {
         @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
+        protected void applyTransformation(float interpolatedTime) {
             moveToStart(interpolatedTime);
         }
     };
 
-    private final Animation mAnimateBottomToStartPosition = new Animation() {
+    private final ClockAnimation mAnimateBottomToStartPosition = new ClockAnimation() {
         @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
+        protected void applyTransformation(float interpolatedTime) {
             moveToEnd(interpolatedTime);
         }
     };
 
     private void startTopScaleDownReturnToStartAnimation(int from,
-                                                         AnimationListener listener) {
+                                                         ClockAnimation.Listener listener) {
         mTopFrom = from;
         mTopStartingScale = mTopCircleView.getScaleX();
-        mTopScaleDownToStartAnimation = new Animation() {
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 float targetScale = (mTopStartingScale + (-mTopStartingScale * interpolatedTime));
                 setTopViewScaleProgress(targetScale);
                 moveToStart(interpolatedTime);
             }
         };
-        mTopScaleDownToStartAnimation.setDuration(SCALE_DOWN_DURATION);
+        animation.setDuration(SCALE_DOWN_DURATION);
         if (listener != null) {
-            mTopCircleView.setAnimationListener(listener);
+            mTopAnimationListener = listener;
         }
-        mTopCircleView.clearAnimation();
-        mTopCircleView.startAnimation(mTopScaleDownToStartAnimation);
+        startTopAnimation(animation);
     }
 
     /**
@@ -1742,23 +3295,22 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
      * @param listener 回弹动画监听
      */
     private void startBottomScaleDownReturnToStartAnimation(int from,
-                                                            AnimationListener listener) {
+                                                            ClockAnimation.Listener listener) {
         mBottomFrom = from;
         mBottomStartingScale = mBottomCircleView.getScaleX();
-        mBottomScaleDownToStartAnimation = new Animation() {
+        final ClockAnimation animation = new ClockAnimation() {
             @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
+            protected void applyTransformation(float interpolatedTime) {
                 float targetScale = (mBottomStartingScale + (-mBottomStartingScale * interpolatedTime));
                 setBottomViewScaleProgress(targetScale);
                 moveToEnd(interpolatedTime);
             }
         };
-        mBottomScaleDownToStartAnimation.setDuration(SCALE_DOWN_DURATION);
+        animation.setDuration(SCALE_DOWN_DURATION);
         if (listener != null) {
-            mBottomCircleView.setAnimationListener(listener);
+            mBottomAnimationListener = listener;
         }
-        mBottomCircleView.clearAnimation();
-        mBottomCircleView.startAnimation(mBottomScaleDownToStartAnimation);
+        startBottomAnimation(animation);
     }
 
     void setTopCircleViewTargetOffsetTopAndBottom(int offset) {
@@ -1766,6 +3318,8 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         ViewCompat.offsetTopAndBottom(mTopCircleView, offset);
         //移动完顶部指示球后，会刷新顶部指示球的当前offset位置
         mCurrentTargetOffsetTop = mTopCircleView.getTop();
+        updateTargetTranslation();
+        invalidatePullState();
     }
 
     void setBottomCircleViewTargetOffsetTopAndBottom(int offset) {
@@ -1773,6 +3327,39 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         ViewCompat.offsetTopAndBottom(mBottomCircleView, offset);
         //移动完底部指示球后，会刷新顶部指示球的当前offset位置
         mCurrentTargetOffsetBottom = mBottomCircleView.getTop();
+        updateTargetTranslation();
+        invalidatePullState();
+    }
+
+    /**
+     * 平移模式下，让内容跟随指示球移动同样的距离。只修改translationY，由RenderNode在绘制时完成平移，
+     * 不会重新测量和布局内容
+     */
+    private void updateTargetTranslation() {
+        if (mPullMode != PULL_MODE_TRANSLATE || mTarget == null) {
+            return;
+        }
+        final int topDistance = Math.max(0, mCurrentTargetOffsetTop - mOriginalOffsetTop);
+        final int bottomDistance = Math.max(0, mOriginalOffsetBottom - mCurrentTargetOffsetBottom);
+        final float translation = topDistance - bottomDistance;
+        if (mTarget.getTranslationY() != translation) {
+            mTarget.setTranslationY(translation);
+        }
+        setHeaderVisibility(mTopHeaderView, translation > 0);
+        setHeaderVisibility(mBottomFooterView, translation < 0);
+    }
+
+    /**
+     * 内容未平移时隐藏Header、Footer，避免透明背景的内容下透出。使用INVISIBLE，不会触发重新布局
+     */
+    private void setHeaderVisibility(View header, boolean visible) {
+        if (header == null) {
+            return;
+        }
+        final int visibility = visible ? View.VISIBLE : View.INVISIBLE;
+        if (header.getVisibility() != visibility) {
+            header.setVisibility(visibility);
+        }
     }
 
     private void onSecondaryPointerUp(MotionEvent ev) {
@@ -1783,6 +3370,7 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
             // active pointer and adjust accordingly.
             final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
             mActivePointerId = ev.getPointerId(newPointerIndex);
+            mTouchPredictor.reset();
         }
     }
 
@@ -1797,6 +3385,115 @@ public class DuplexSwipeRefreshLayout extends ViewGroup implements NestedScrolli
         void onRefresh();
     }
 
+    /**
+     * 配置变化重建时需要保存的刷新状态
+     */
+    static class SavedState extends BaseSavedState {
+        //顶部是否有正在进行的刷新
+        boolean mTopRefreshing;
+        //底部是否有正在进行的刷新
+        boolean mBottomRefreshing;
+        float mTotalDragDistance;
+        int mTopSpinnerOffsetEnd;
+        int mBottomSpinnerOffsetEnd;
+        int mCustomSlingshotDistance;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        //BaseSavedState(Parcel, ClassLoader)只在API 24及以上可用，这里使用单参数的构造方法
+        SavedState(Parcel source) {
+            super(source);
+            mTopRefreshing = source.readInt() != 0;
+            mBottomRefreshing = source.readInt() != 0;
+            mTotalDragDistance = source.readFloat();
+            mTopSpinnerOffsetEnd = source.readInt();
+            mBottomSpinnerOffsetEnd = source.readInt();
+            mCustomSlingshotDistance = source.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            super.writeToParcel(dest, flags);
+            dest.writeInt(mTopRefreshing ? 1 : 0);
+            dest.writeInt(mBottomRefreshing ? 1 : 0);
+            dest.writeFloat(mTotalDragDistance);
+            dest.writeInt(mTopSpinnerOffsetEnd);
+            dest.writeInt(mBottomSpinnerOffsetEnd);
+            dest.writeInt(mCustomSlingshotDistance);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * 预加载模式下，已提前回调onRefresh的拖动最终没有触发刷新时的回调，实现方应在这里取消已开始的加载任务
+     */
+    public interface OnRefreshCancelListener {
+        /**
+         * 拖动回到刷新阈值以下，或手势被取消
+         */
+        void onRefreshCancelled();
+    }
+
+    /**
+     * 没有更多数据时上拉超过刷新阈值松手的回调，见{@link #setBottomEndReached(boolean)}
+     */
+    public interface OnEndReachedPullListener {
+        void onEndReachedPull();
+    }
+
+    /**
+     * 指示球状态监听，见{@link #addOnPullStateListener(OnPullStateListener)}。
+     * 在主线程、状态变化所在帧的绘制之前回调，参数全部为基本类型，回调中不要分配对象或执行耗时操作；
+     * 跟随指示球移动其它View时应修改translation等绘制属性，修改布局参数要到下一帧才能生效
+     */
+    public interface OnPullStateListener {
+        /**
+         * @param edge     {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+         * @param state    PULL_STATE_*
+         * @param fraction 拖动进度，见{@link #getPullFraction(int)}
+         * @param offset   指示球离开初始位置的距离，单位像素
+         */
+        void onPullStateChanged(int edge, int state, float fraction, int offset);
+    }
+
+    /**
+     * 刷新超时被自动收起时的回调，通常用于上报忘记结束刷新的页面
+     */
+    public interface OnRefreshTimeoutListener {
+        /**
+         * @param edge          {@link #EDGE_TOP}或{@link #EDGE_BOTTOM}
+         * @param elapsedMillis 从进入刷新状态到被收起经过的时长
+         */
+        void onRefreshTimeout(int edge, long elapsedMillis);
+    }
+
+    /**
+     * 需要重写{@link #canChildScrollDown()}判断逻辑的实现方需要实现此接口，与{@link OnChildScrollUpCallback}对应
+     */
+    public interface OnChildScrollDownCallback {
+        /**
+         * 调用{@link #canChildScrollDown()}时回调，由实现方决定子View是否还能向下滚动
+         *
+         * @param parent 当前的DuplexSwipeRefreshLayout
+         * @param child  DuplexSwipeRefreshLayout的子View
+         * @return 子View是否还能向下滚动
+         */
+        boolean canChildScrollDown(@NonNull DuplexSwipeRefreshLayout parent, @Nullable View child);
+    }
+
     /**
      * Classes that wish to override {@link androidx.swiperefreshlayout.widget.SwipeRefreshLayout#canChildScrollUp()} method
      * behavior should implement this interface.
@@ -0,0 +1,51 @@
+package com.damiao.diy.view.swipe;
+
+/**
+ * 底部"没有更多数据"状态及其退避时长。外部设置的状态与当前手势使用的状态分开保存：
+ * 手势开始时调用{@link #latch(long)}确定这次上拉是否按没有更多数据处理，手势中途退避到期也不会改变，
+ * 避免指示球在拖动中途从阻尼跟随突然跳到正常跟随。时间统一使用SystemClock.elapsedRealtime()
+ */
+final class EndReachedState {
+    //外部设置的没有更多数据状态
+    private boolean mEndReached;
+    //进入没有更多数据状态的时间
+    private long mEndReachedAt;
+    //自动解除的时长，小于等于0表示只能由外部解除
+    private long mBackoffMillis;
+    //当前手势是否按没有更多数据处理
+    private boolean mLatched;
+
+    void set(boolean endReached, long nowMillis) {
+        mEndReached = endReached;
+        mEndReachedAt = nowMillis;
+        //外部主动设置时立即生效，包括正在进行的手势
+        mLatched = endReached;
+    }
+
+    /**
+     * @return 在nowMillis时刻是否处在没有更多数据状态，退避到期后返回false，不修改任何状态
+     */
+    boolean isEndReached(long nowMillis) {
+        return mEndReached && !(mBackoffMillis > 0 && nowMillis - mEndReachedAt >= mBackoffMillis);
+    }
+
+    /**
+     * 手势开始时调用，退避已经到期则解除没有更多数据状态，并确定这次手势使用的状态
+     */
+    void latch(long nowMillis) {
+        mEndReached = isEndReached(nowMillis);
+        mLatched = mEndReached;
+    }
+
+    boolean isLatched() {
+        return mLatched;
+    }
+
+    void setBackoff(long backoffMillis) {
+        mBackoffMillis = backoffMillis;
+    }
+
+    long getBackoff() {
+        return mBackoffMillis;
+    }
+}
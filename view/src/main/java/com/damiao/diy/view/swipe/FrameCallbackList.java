@@ -0,0 +1,42 @@
+package com.damiao.diy.view.swipe;
+
+import java.util.ArrayList;
+
+/**
+ * 帧时钟内部的回调队列。每帧只执行这一帧开始前post的回调，执行过程中新post的回调留到下一帧；
+ * 执行过程中被移除的回调不会再执行
+ */
+final class FrameCallbackList {
+    //等待下一帧执行的回调
+    private final ArrayList<FrameClock.FrameCallback> mPending = new ArrayList<>();
+    //当前帧正在执行的回调
+    private final ArrayList<FrameClock.FrameCallback> mRunning = new ArrayList<>();
+
+    void add(FrameClock.FrameCallback callback) {
+        mPending.add(callback);
+    }
+
+    void remove(FrameClock.FrameCallback callback) {
+        mPending.remove(callback);
+        final int index = mRunning.indexOf(callback);
+        if (index >= 0) {
+            mRunning.set(index, null);
+        }
+    }
+
+    boolean isEmpty() {
+        return mPending.isEmpty();
+    }
+
+    void dispatch(long frameTimeNanos) {
+        mRunning.addAll(mPending);
+        mPending.clear();
+        for (int i = 0; i < mRunning.size(); i++) {
+            final FrameClock.FrameCallback callback = mRunning.get(i);
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+        mRunning.clear();
+    }
+}
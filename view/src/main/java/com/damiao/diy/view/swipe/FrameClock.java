@@ -0,0 +1,28 @@
+package com.damiao.diy.view.swipe;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 驱动指示球动画的帧时钟。DuplexSwipeRefreshLayout的位移、缩放、透明度动画都通过它逐帧推进，
+ * 默认由Choreographer在每个vsync回调；测试和基准测试中可以替换为手动推进的时钟，
+ * 不依赖系统的动画时钟，见{@link DuplexSwipeRefreshLayout#setFrameClock(FrameClock)}
+ */
+public interface FrameClock {
+
+    /**
+     * 在下一帧回调一次，同一个callback在同一帧内只应被post一次
+     */
+    void postFrameCallback(@NonNull FrameCallback callback);
+
+    /**
+     * 移除尚未执行的回调，包括当前帧中还没轮到执行的回调
+     */
+    void removeFrameCallback(@NonNull FrameCallback callback);
+
+    interface FrameCallback {
+        /**
+         * @param frameTimeNanos 当前帧的时间，单位纳秒
+         */
+        void doFrame(long frameTimeNanos);
+    }
+}
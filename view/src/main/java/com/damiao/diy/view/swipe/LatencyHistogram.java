@@ -0,0 +1,136 @@
+package com.damiao.diy.view.swipe;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 固定内存的对数分桶耗时直方图，单位毫秒。每个2的幂次区间再均分为4个桶，相对误差不超过19%，
+ * 覆盖0到约17分钟，超出范围的值计入最后一个桶。记录时不分配对象，只能在主线程使用
+ */
+public class LatencyHistogram {
+    //每个2的幂次区间细分的桶数
+    private static final int SUB_BUCKETS = 4;
+    //覆盖的2的幂次区间数，2^20毫秒约17分钟
+    private static final int POWERS = 20;
+    //第0个桶记录小于1ms的值
+    private static final int BUCKET_COUNT = POWERS * SUB_BUCKETS + 1;
+    //相邻桶边界的比例的对数，即ln(2) / SUB_BUCKETS
+    private static final double LOG_BUCKET_BASE = Math.log(2) / SUB_BUCKETS;
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+    private long mCount;
+    private long mMax;
+
+    /**
+     * 记录一次耗时，负数按0记录
+     */
+    public void record(long valueMillis) {
+        final long value = Math.max(0, valueMillis);
+        mCounts[indexOf(value)]++;
+        mCount++;
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * @param quantile 0-1，例如0.95
+     * @return 对应分位的耗时上界，不超过记录过的最大值，没有记录时返回0
+     */
+    public long getPercentile(double quantile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(quantile * mCount));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += mCounts[i];
+            if (cumulative >= target) {
+                //最后一个桶没有上界，直接返回最大值
+                return i == BUCKET_COUNT - 1 ? mMax : Math.min(upperBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mCount = 0;
+        mMax = 0;
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(mCount, getPercentile(.5), getPercentile(.95), getPercentile(.99), mMax);
+    }
+
+    private static int indexOf(long value) {
+        if (value < 1) {
+            return 0;
+        }
+        final int index = (int) (Math.log(value) / LOG_BUCKET_BASE) + 1;
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 第index个桶的上界，第0个桶为1ms，之后每个桶是前一个的2^(1/4)倍
+     */
+    private static long upperBound(int index) {
+        return (long) Math.ceil(Math.exp(index * LOG_BUCKET_BASE));
+    }
+
+    /**
+     * 某一时刻直方图的统计结果
+     */
+    public static final class Snapshot {
+        private final long mCount;
+        private final long mP50;
+        private final long mP95;
+        private final long mP99;
+        private final long mMax;
+
+        Snapshot(long count, long p50, long p95, long p99, long max) {
+            mCount = count;
+            mP50 = p50;
+            mP95 = p95;
+            mP99 = p99;
+            mMax = max;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getP50() {
+            return mP50;
+        }
+
+        public long getP95() {
+            return mP95;
+        }
+
+        public long getP99() {
+            return mP99;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "count=" + mCount + " p50=" + mP50 + "ms p95=" + mP95 + "ms p99=" + mP99
+                    + "ms max=" + mMax + "ms";
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.damiao.diy.view.swipe;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 将两端指示球的状态、拖动进度和位移分发给{@link DuplexSwipeRefreshLayout.OnPullStateListener}。
+ * <p>
+ * 状态变化时只调用{@link #invalidate(FrameClock)}标记，实际的读取和分发由布局在当前帧绘制之前调用{@link #flush()}执行，
+ * 监听驱动的其它View与指示球在同一帧更新；这一帧没有绘制时，由帧时钟在下一帧兜底分发。
+ * 同一帧内无论收到多少MOVE或嵌套滑动事件都最多分发一次，数值没有变化的一端不分发。
+ * 监听保存在写时复制的数组中，分发过程中增删监听不影响本次分发；分发本身不分配任何对象
+ */
+final class PullStateDispatcher implements FrameClock.FrameCallback {
+    private static final DuplexSwipeRefreshLayout.OnPullStateListener[] EMPTY_LISTENERS =
+            new DuplexSwipeRefreshLayout.OnPullStateListener[0];
+    //两端，下标即EDGE_TOP、EDGE_BOTTOM
+    private static final int EDGE_COUNT = 2;
+
+    /**
+     * 状态的来源，分发时读取两端的当前值
+     */
+    interface Source {
+        int getPullState(int edge);
+
+        float getPullFraction(int edge);
+
+        int getPullOffset(int edge);
+    }
+
+    private final Source mSource;
+    private DuplexSwipeRefreshLayout.OnPullStateListener[] mListeners = EMPTY_LISTENERS;
+    //是否已经安排了下一帧的分发
+    private boolean mScheduled;
+    private FrameClock mClock;
+    //上一次分发的值，第一次分发前与空闲状态一致
+    private final int[] mLastStates = new int[EDGE_COUNT];
+    private final float[] mLastFractions = new float[EDGE_COUNT];
+    private final int[] mLastOffsets = new int[EDGE_COUNT];
+
+    PullStateDispatcher(@NonNull Source source) {
+        mSource = source;
+    }
+
+    void addListener(@NonNull DuplexSwipeRefreshLayout.OnPullStateListener listener) {
+        final int length = mListeners.length;
+        final DuplexSwipeRefreshLayout.OnPullStateListener[] listeners =
+                new DuplexSwipeRefreshLayout.OnPullStateListener[length + 1];
+        System.arraycopy(mListeners, 0, listeners, 0, length);
+        listeners[length] = listener;
+        mListeners = listeners;
+    }
+
+    void removeListener(@NonNull DuplexSwipeRefreshLayout.OnPullStateListener listener) {
+        final int length = mListeners.length;
+        for (int i = 0; i < length; i++) {
+            if (mListeners[i] == listener) {
+                if (length == 1) {
+                    mListeners = EMPTY_LISTENERS;
+                    return;
+                }
+                final DuplexSwipeRefreshLayout.OnPullStateListener[] listeners =
+                        new DuplexSwipeRefreshLayout.OnPullStateListener[length - 1];
+                System.arraycopy(mListeners, 0, listeners, 0, i);
+                System.arraycopy(mListeners, i + 1, listeners, i, length - i - 1);
+                mListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 状态可能发生了变化，在下一帧读取并分发；没有监听时什么也不做
+     */
+    void invalidate(@NonNull FrameClock clock) {
+        if (mScheduled || mListeners.length == 0) {
+            return;
+        }
+        mScheduled = true;
+        mClock = clock;
+        clock.postFrameCallback(this);
+    }
+
+    /**
+     * 立即执行尚未执行的分发，并移除帧时钟中的兜底回调；没有待分发的变化时什么也不做
+     */
+    void flush() {
+        if (mScheduled) {
+            mClock.removeFrameCallback(this);
+            doFrame(0);
+        }
+    }
+
+    /**
+     * 取消尚未执行的分发，布局detach或更换帧时钟时调用
+     */
+    void cancel() {
+        if (mScheduled) {
+            mScheduled = false;
+            mClock.removeFrameCallback(this);
+            mClock = null;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mClock = null;
+        for (int edge = 0; edge < EDGE_COUNT; edge++) {
+            final int state = mSource.getPullState(edge);
+            final float fraction = mSource.getPullFraction(edge);
+            final int offset = mSource.getPullOffset(edge);
+            if (state == mLastStates[edge] && fraction == mLastFractions[edge]
+                    && offset == mLastOffsets[edge]) {
+                continue;
+            }
+            mLastStates[edge] = state;
+            mLastFractions[edge] = fraction;
+            mLastOffsets[edge] = offset;
+            //取当前数组的引用，回调中增删监听只会替换数组
+            final DuplexSwipeRefreshLayout.OnPullStateListener[] listeners = mListeners;
+            for (DuplexSwipeRefreshLayout.OnPullStateListener listener : listeners) {
+                listener.onPullStateChanged(edge, state, fraction, offset);
+            }
+        }
+    }
+}
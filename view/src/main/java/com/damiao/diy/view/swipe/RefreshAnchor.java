@@ -0,0 +1,22 @@
+package com.damiao.diy.view.swipe;
+
+/**
+ * 刷新结束时负责把新数据通知给内容View并保持可见位置不变，配合
+ * {@link DuplexSwipeRefreshLayout#completeTopRefresh(int)}和
+ * {@link DuplexSwipeRefreshLayout#completeBottomRefresh(int)}使用。
+ * <p>
+ * 回调时数据已经由外部插入完毕，实现类只需要发出插入通知并锚定当前可见的行，通知和锚定应当合并到同一次布局中完成。
+ * RecyclerView可以直接使用view-recyclerview模块中的RecyclerViewRefreshAnchor
+ */
+public interface RefreshAnchor {
+
+    /**
+     * 顶部刷新结束，在内容的视觉顶部插入了count条数据
+     */
+    void onTopItemsInserted(int count);
+
+    /**
+     * 底部刷新结束，在内容的视觉底部插入了count条数据
+     */
+    void onBottomItemsInserted(int count);
+}
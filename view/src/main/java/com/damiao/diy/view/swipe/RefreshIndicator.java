@@ -0,0 +1,78 @@
+package com.damiao.diy.view.swipe;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * 指示球内部的刷新指示器，DuplexSwipeRefreshLayout负责指示球的位移、缩放、背景和手势计算，指示器只负责绘制
+ * 指示球内部的内容。顶部和底部可以分别安装不同的指示器，见{@link DuplexSwipeRefreshLayout#setTopRefreshIndicator(RefreshIndicator)}
+ * 和{@link DuplexSwipeRefreshLayout#setBottomRefreshIndicator(RefreshIndicator)}，默认实现为{@link CircularRefreshIndicator}。
+ * <p>
+ * 约定：
+ * <ul>
+ * <li>所有方法都在主线程调用。{@link #onPull(float, float)}、{@link #onSettle(float)}、{@link #setAlpha(int)}、
+ * {@link #getAlpha()}在拖动和动画过程中每帧都会调用，这些方法以及{@link #getDrawable()}的绘制过程不允许分配任何对象，
+ * 可以在仪器测试中使用view-testing模块的RefreshIndicatorAllocationChecker检查</li>
+ * <li>{@link #getDrawable()}返回的Drawable只允许在{@link #onRefreshStart()}和{@link #onRefreshStop()}中切换，
+ * 布局会在这两个回调之后重新读取并设置到指示球上</li>
+ * <li>若Drawable实现了{@link android.graphics.drawable.Animatable}，布局不可见时会直接调用其stop()暂停旋转，
+ * 重新可见后调用start()恢复</li>
+ * </ul>
+ */
+public interface RefreshIndicator {
+
+    /**
+     * @return 当前需要展示在指示球内部的Drawable
+     */
+    @NonNull
+    Drawable getDrawable();
+
+    /**
+     * 设置指示器的颜色，可传入多个颜色由指示器自行决定如何使用
+     */
+    void setColorSchemeColors(@ColorInt int... colors);
+
+    /**
+     * 设置指示器的尺寸样式，{@link DuplexSwipeRefreshLayout#DEFAULT}或{@link DuplexSwipeRefreshLayout#LARGE}
+     */
+    void setSize(int size);
+
+    /**
+     * 设置指示器的透明度，0-255，拖动未达到刷新阈值时为半透明，达到阈值后为完全不透明
+     */
+    void setAlpha(int alpha);
+
+    int getAlpha();
+
+    /**
+     * 指示球被拖动时每帧回调
+     *
+     * @param dragPercent    拖动距离与刷新阈值的比例，0-1，达到1时松手即会触发刷新
+     * @param tensionPercent 超过刷新阈值后继续拉扯的张力，0-0.5，未超过阈值时为0
+     */
+    void onPull(float dragPercent, float tensionPercent);
+
+    /**
+     * 松手时未达到刷新阈值，指示球即将弹回初始位置
+     */
+    void onPullCancelled();
+
+    /**
+     * 松手触发刷新后，指示球移动到悬垂位置过程中每帧回调
+     *
+     * @param progress 移动进度，0-1
+     */
+    void onSettle(float progress);
+
+    /**
+     * 指示球到达悬垂位置，开始刷新中的状态（通常开始旋转）
+     */
+    void onRefreshStart();
+
+    /**
+     * 刷新结束或指示球被重置，停止刷新中的状态
+     */
+    void onRefreshStop();
+}
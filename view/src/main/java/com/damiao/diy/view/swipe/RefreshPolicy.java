@@ -0,0 +1,101 @@
+package com.damiao.diy.view.swipe;
+
+import android.os.SystemClock;
+
+/**
+ * 顶部下拉刷新的刷新策略。记录数据最近一次刷新完成的时间，数据仍处在新鲜期（TTL）内时，用户的下拉刷新
+ * 不会再触发onRefresh，只让指示球短暂悬停旋转作为反馈（或直接弹回）；同时支持在DuplexSwipeRefreshLayout
+ * attach到窗口时，仅在数据已过期的情况下自动发起一次刷新。
+ * <p>
+ * 自动刷新不会遮挡内容，应用可以先展示缓存数据，刷新在顶部指示球后台进行（stale-while-revalidate）。
+ * 时间统一使用{@link SystemClock#elapsedRealtime()}，不受系统时间修改的影响。
+ */
+public class RefreshPolicy {
+    //从未刷新过
+    private static final long NEVER = -1;
+
+    //新鲜期内下拉时，指示球悬停旋转的默认时长
+    public static final long DEFAULT_FRESH_HOLD_DURATION = 400;
+
+    //数据的新鲜期时长
+    private final long mFreshnessWindowMillis;
+    //新鲜期内下拉时，指示球悬停旋转的时长，小于等于0表示直接弹回
+    private long mFreshHoldMillis = DEFAULT_FRESH_HOLD_DURATION;
+    //attach到窗口时，若数据已过期，是否自动发起刷新
+    private boolean mAutoRefreshOnAttach;
+    //最近一次刷新完成的时间
+    private long mLastRefreshedAt = NEVER;
+
+    /**
+     * @param freshnessWindowMillis 数据的新鲜期时长，单位毫秒，距离上次刷新完成未超过这个时长的数据被视为新鲜数据
+     */
+    public RefreshPolicy(long freshnessWindowMillis) {
+        if (freshnessWindowMillis < 0) {
+            throw new IllegalArgumentException("freshnessWindowMillis must be >= 0");
+        }
+        mFreshnessWindowMillis = freshnessWindowMillis;
+    }
+
+    public long getFreshnessWindow() {
+        return mFreshnessWindowMillis;
+    }
+
+    /**
+     * 设置新鲜期内下拉刷新时，指示球悬停旋转的时长，传入0则指示球不再悬停，直接弹回初始位置
+     */
+    public void setFreshHoldDuration(long holdMillis) {
+        mFreshHoldMillis = holdMillis;
+    }
+
+    public long getFreshHoldDuration() {
+        return mFreshHoldMillis;
+    }
+
+    /**
+     * 设置attach到窗口时，若数据已过期是否自动发起一次刷新（会回调顶部的onRefresh）
+     */
+    public void setAutoRefreshOnAttach(boolean autoRefresh) {
+        mAutoRefreshOnAttach = autoRefresh;
+    }
+
+    public boolean isAutoRefreshOnAttach() {
+        return mAutoRefreshOnAttach;
+    }
+
+    /**
+     * 记录数据在当前时刻刷新完成，顶部刷新结束时DuplexSwipeRefreshLayout会自动调用；
+     * 应用从其它途径拿到了最新数据时也可以手动调用
+     */
+    public void markRefreshed() {
+        markRefreshed(SystemClock.elapsedRealtime());
+    }
+
+    public void markRefreshed(long nowMillis) {
+        mLastRefreshedAt = nowMillis;
+    }
+
+    /**
+     * 使数据立即过期，下一次下拉刷新一定会回调onRefresh
+     */
+    public void invalidate() {
+        mLastRefreshedAt = NEVER;
+    }
+
+    /**
+     * @return 最近一次刷新完成的时间，从未刷新过则返回-1
+     */
+    public long getLastRefreshedAt() {
+        return mLastRefreshedAt;
+    }
+
+    /**
+     * 数据是否已过期（从未刷新过，或距离上次刷新完成已超过新鲜期）
+     */
+    public boolean isStale() {
+        return isStale(SystemClock.elapsedRealtime());
+    }
+
+    public boolean isStale(long nowMillis) {
+        return mLastRefreshedAt == NEVER || nowMillis - mLastRefreshedAt >= mFreshnessWindowMillis;
+    }
+}
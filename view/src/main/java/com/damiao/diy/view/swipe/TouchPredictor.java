@@ -0,0 +1,111 @@
+package com.damiao.diy.view.swipe;
+
+import android.view.MotionEvent;
+
+/**
+ * 根据触摸事件流预测手指在未来某一时刻的y坐标，用于让指示球跟上手指。
+ * <p>
+ * 指示球的位置由最近一次送达的触摸坐标决定，而这个坐标在送达时已经落后于手指，画面再到屏幕上又要等到下一个vsync，
+ * 60Hz的设备上指示球至少落后手指一帧。这里用最近一小段时间内的采样（包括MotionEvent中批量合并的历史采样，
+ * 不需要额外处理任何事件）做最小二乘直线拟合得到速度，再外推到目标时刻。方向刚刚发生反转或采样不足时不做预测。
+ * 采样保存在定长的环形数组中，每帧调用不分配对象
+ */
+final class TouchPredictor {
+    //参与拟合的最大采样数
+    private static final int MAX_SAMPLES = 8;
+    //只使用最近这段时间内的采样，更早的采样不能反映当前的速度
+    private static final long SAMPLE_WINDOW_MILLIS = 50;
+    //最多向前预测的时长，超出后预测误差明显大于收益
+    private static final long MAX_PREDICTION_MILLIS = 25;
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mYs = new float[MAX_SAMPLES];
+    //最新一个采样的下标
+    private int mHead = -1;
+    //已保存的采样数
+    private int mCount;
+
+    /**
+     * 清空采样，新的手势开始或者跟踪的手指发生变化时调用
+     */
+    void reset() {
+        mHead = -1;
+        mCount = 0;
+    }
+
+    /**
+     * 加入一个触摸事件中指定手指的全部采样，包括历史采样
+     */
+    void addMovement(MotionEvent ev, int pointerIndex) {
+        final int historySize = ev.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            addSample(ev.getHistoricalEventTime(i), ev.getHistoricalY(pointerIndex, i));
+        }
+        addSample(ev.getEventTime(), ev.getY(pointerIndex));
+    }
+
+    void addSample(long timeMillis, float y) {
+        if (mCount > 0 && timeMillis < mTimes[mHead]) {
+            //时间倒退说明是新的事件流，之前的采样已经没有意义
+            reset();
+        } else if (mCount > 0 && timeMillis == mTimes[mHead]) {
+            //同一时刻的采样（例如拦截和处理同一个事件时各加入一次）只保留最新的位置
+            mYs[mHead] = y;
+            return;
+        }
+        mHead = (mHead + 1) % MAX_SAMPLES;
+        mTimes[mHead] = timeMillis;
+        mYs[mHead] = y;
+        if (mCount < MAX_SAMPLES) {
+            mCount++;
+        }
+    }
+
+    /**
+     * 预测手指在targetTimeMillis时刻的y坐标
+     *
+     * @return 无法预测时返回最新采样的y坐标，没有采样时返回NaN
+     */
+    float predictY(long targetTimeMillis) {
+        if (mCount == 0) {
+            return Float.NaN;
+        }
+        final long latestTime = mTimes[mHead];
+        final float latestY = mYs[mHead];
+        final long horizon = Math.min(targetTimeMillis - latestTime, MAX_PREDICTION_MILLIS);
+        if (horizon <= 0 || mCount < 3) {
+            return latestY;
+        }
+        //以最新采样为原点做最小二乘拟合，斜率即速度（像素/毫秒）
+        float sumT = 0;
+        float sumY = 0;
+        float sumTT = 0;
+        float sumTY = 0;
+        int n = 0;
+        for (int i = 0; i < mCount; i++) {
+            final int index = (mHead - i + MAX_SAMPLES) % MAX_SAMPLES;
+            final long age = latestTime - mTimes[index];
+            if (age > SAMPLE_WINDOW_MILLIS) {
+                break;
+            }
+            final float t = -age;
+            final float y = mYs[index] - latestY;
+            sumT += t;
+            sumY += y;
+            sumTT += t * t;
+            sumTY += t * y;
+            n++;
+        }
+        final float denominator = n * sumTT - sumT * sumT;
+        if (n < 3 || denominator == 0) {
+            return latestY;
+        }
+        final float velocity = (n * sumTY - sumT * sumY) / denominator;
+        //最近一段移动与拟合的速度方向相反，说明手指正在折返，此时外推只会放大误差
+        final int previous = (mHead - 1 + MAX_SAMPLES) % MAX_SAMPLES;
+        if ((latestY - mYs[previous]) * velocity < 0) {
+            return latestY;
+        }
+        return latestY + velocity * horizon;
+    }
+}
@@ -0,0 +1,94 @@
+package com.damiao.diy.view.swipe;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 手动推进的帧时钟，用于单元测试和仪器测试。每次{@link #step()}推进固定的帧间隔并执行一帧，
+ * 与真实时间无关，可以用远高于屏幕刷新率的速度跑完整的刷新过程，同时统计每帧的开销。
+ * 位于src/sharedTest，同时加入test和androidTest两个源码集，不会打包进库
+ */
+public class ManualFrameClock implements FrameClock {
+    //默认帧间隔，60fps
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    private final FrameCallbackList mCallbacks = new FrameCallbackList();
+    private final long mFrameIntervalNanos;
+    //当前帧的时间
+    private long mFrameTimeNanos;
+    //已经执行的帧数
+    private long mFrameCount;
+
+    public ManualFrameClock() {
+        this(DEFAULT_FRAME_INTERVAL_NANOS);
+    }
+
+    /**
+     * @param frameIntervalNanos 每一帧推进的时间，单位纳秒
+     */
+    public ManualFrameClock(long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            throw new IllegalArgumentException("frameIntervalNanos must be > 0");
+        }
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    @Override
+    public void postFrameCallback(@NonNull FrameCallback callback) {
+        mCallbacks.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(@NonNull FrameCallback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /**
+     * 推进一帧，执行这一帧之前post的所有回调
+     */
+    public void step() {
+        mFrameTimeNanos += mFrameIntervalNanos;
+        mFrameCount++;
+        mCallbacks.dispatch(mFrameTimeNanos);
+    }
+
+    /**
+     * 按帧间隔推进指定的时长
+     *
+     * @return 执行的帧数
+     */
+    public int advanceBy(long millis) {
+        final long target = mFrameTimeNanos + millis * 1_000_000L;
+        int frames = 0;
+        while (mFrameTimeNanos + mFrameIntervalNanos <= target) {
+            step();
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * 一直推进到没有待执行的回调（所有动画都已结束），最多推进maxFrames帧
+     *
+     * @return 执行的帧数
+     */
+    public int runUntilIdle(int maxFrames) {
+        int frames = 0;
+        while (hasPendingCallbacks() && frames < maxFrames) {
+            step();
+            frames++;
+        }
+        return frames;
+    }
+
+    public boolean hasPendingCallbacks() {
+        return !mCallbacks.isEmpty();
+    }
+
+    public long getFrameTimeNanos() {
+        return mFrameTimeNanos;
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+}
@@ -0,0 +1,83 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.fail
+import org.junit.Test
+import java.lang.ref.WeakReference
+
+/**
+ * 检查动画结束、取消后不再持有监听和外部对象。帧时钟和动画对象在布局中都是长期存在的，
+ * 监听中引用的Activity、用户回调必须在动画结束或取消后可以被回收
+ */
+class AnimationRetentionTest {
+
+    //模拟被监听引用的Activity
+    private class Owner {
+        val payload = ByteArray(1 shl 20)
+    }
+
+    private class NoopAnimation : ClockAnimation() {
+        override fun applyTransformation(interpolatedTime: Float) {}
+    }
+
+    //长期存在的帧时钟和动画对象
+    private val clock = ManualFrameClock()
+    private val animation = NoopAnimation()
+
+    private fun startWithOwner(): WeakReference<Owner> {
+        val owner = Owner()
+        animation.setDuration(50)
+        animation.setListener { owner.payload[0]++ }
+        animation.start(clock)
+        return WeakReference(owner)
+    }
+
+    private fun startOnClock(): WeakReference<ClockAnimation> {
+        val transient = NoopAnimation()
+        transient.setDuration(50)
+        transient.start(clock)
+        clock.step()
+        transient.cancel()
+        return WeakReference(transient)
+    }
+
+    private fun assertCollected(ref: WeakReference<*>) {
+        repeat(20) {
+            System.gc()
+            if (ref.get() == null) {
+                return
+            }
+            Thread.sleep(10)
+        }
+        fail("${ref.get()} is still reachable")
+    }
+
+    @Test
+    fun completedAnimation_releasesListener() {
+        val owner = startWithOwner()
+        clock.runUntilIdle(100)
+
+        assertCollected(owner)
+    }
+
+    @Test
+    fun cancelledAnimation_releasesListener() {
+        val owner = startWithOwner()
+        clock.step()
+        animation.cancel()
+
+        assertCollected(owner)
+    }
+
+    @Test
+    fun finishedAnimation_releasesListener() {
+        val owner = startWithOwner()
+        animation.finish()
+
+        assertCollected(owner)
+    }
+
+    @Test
+    fun cancelledAnimation_isNotRetainedByClock() {
+        assertCollected(startOnClock())
+    }
+}
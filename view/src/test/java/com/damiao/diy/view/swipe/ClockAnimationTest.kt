@@ -0,0 +1,97 @@
+package com.damiao.diy.view.swipe
+
+import android.animation.TimeInterpolator
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ClockAnimationTest {
+
+    private class RecordingAnimation : ClockAnimation() {
+        val frames = ArrayList<Float>()
+
+        override fun applyTransformation(interpolatedTime: Float) {
+            frames.add(interpolatedTime)
+        }
+    }
+
+    private val linear = TimeInterpolator { it }
+
+    @Test
+    fun runsFromFirstFrameToEnd_thenNotifiesListener() {
+        val clock = ManualFrameClock(10_000_000L)
+        val animation = RecordingAnimation()
+        var ended = 0
+        animation.setDuration(100)
+        animation.setInterpolator(linear)
+        animation.setListener { ended++ }
+
+        animation.start(clock)
+        val frames = clock.runUntilIdle(1000)
+
+        assertEquals(11, frames)
+        assertEquals(0f, animation.frames.first(), 0f)
+        assertEquals(1f, animation.frames.last(), 0f)
+        assertEquals(1, ended)
+        assertFalse(animation.isRunning)
+    }
+
+    @Test
+    fun cancel_stopsWithoutNotifying() {
+        val clock = ManualFrameClock()
+        val animation = RecordingAnimation()
+        var ended = false
+        animation.setDuration(300)
+        animation.setListener { ended = true }
+
+        animation.start(clock)
+        clock.advanceBy(50)
+        animation.cancel()
+
+        assertFalse(clock.hasPendingCallbacks())
+        assertFalse(ended)
+    }
+
+    @Test
+    fun restartFromEndListener_runsAgain() {
+        val clock = ManualFrameClock()
+        val first = RecordingAnimation()
+        val second = RecordingAnimation()
+        first.setDuration(50)
+        second.setDuration(50)
+        first.setListener { second.start(clock) }
+
+        first.start(clock)
+        clock.runUntilIdle(1000)
+
+        assertTrue(second.frames.isNotEmpty())
+        assertEquals(1f, second.frames.last(), 0f)
+    }
+
+    @Test
+    fun durationScale_shortensAnimation() {
+        val clock = ManualFrameClock(10_000_000L)
+        val animation = RecordingAnimation()
+        animation.setDuration(100)
+        animation.setDurationScale(.5f)
+
+        animation.start(clock)
+
+        assertEquals(6, clock.runUntilIdle(1000))
+    }
+
+    @Test
+    fun finish_appliesEndStateWithoutClock() {
+        val animation = RecordingAnimation()
+        var ended = 0
+        animation.setDuration(300)
+        animation.setListener { ended++ }
+
+        animation.finish()
+
+        assertEquals(listOf(1f), animation.frames)
+        assertEquals(1, ended)
+        assertFalse(animation.isRunning)
+    }
+}
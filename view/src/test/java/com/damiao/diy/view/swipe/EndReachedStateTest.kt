@@ -0,0 +1,67 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class EndReachedStateTest {
+
+    @Test
+    fun set_latchesImmediately() {
+        val state = EndReachedState()
+        state.set(true, 1000)
+        assertTrue(state.isLatched)
+        assertTrue(state.isEndReached(1000))
+    }
+
+    @Test
+    fun setFalse_unlatches() {
+        val state = EndReachedState()
+        state.set(true, 1000)
+        state.set(false, 2000)
+        assertFalse(state.isLatched)
+        assertFalse(state.isEndReached(2000))
+    }
+
+    @Test
+    fun latchInsideBackoff_staysEndReached() {
+        val state = EndReachedState()
+        state.backoff = 500
+        state.set(true, 1000)
+        state.latch(1499)
+        assertTrue(state.isLatched)
+        assertTrue(state.isEndReached(1499))
+    }
+
+    @Test
+    fun expiredBackoff_onlyUnlatchesAtNextGesture() {
+        val state = EndReachedState()
+        state.backoff = 500
+        state.set(true, 1000)
+        state.latch(1200)
+
+        //手势进行中退避到期，这次手势仍按没有更多数据处理，查询也不改变状态
+        assertFalse(state.isEndReached(1500))
+        assertFalse(state.isEndReached(1500))
+        assertTrue(state.isLatched)
+
+        state.latch(1600)
+        assertFalse(state.isLatched)
+        //解除后时间回退也不会重新进入没有更多数据状态
+        assertFalse(state.isEndReached(1100))
+    }
+
+    @Test
+    fun nonPositiveBackoff_neverExpires() {
+        val state = EndReachedState()
+        assertEquals(0L, state.backoff)
+        state.set(true, 1000)
+        state.latch(Long.MAX_VALUE)
+        assertTrue(state.isLatched)
+
+        state.backoff = -1
+        state.latch(Long.MAX_VALUE)
+        assertTrue(state.isLatched)
+    }
+}
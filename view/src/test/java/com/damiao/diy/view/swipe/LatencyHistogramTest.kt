@@ -0,0 +1,51 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LatencyHistogramTest {
+
+    @Test
+    fun empty_snapshotIsZero() {
+        val snapshot = LatencyHistogram().snapshot()
+        assertEquals(0L, snapshot.count)
+        assertEquals(0L, snapshot.p99)
+    }
+
+    @Test
+    fun percentiles_areWithinBucketError() {
+        val histogram = LatencyHistogram()
+        for (value in 1L..1000L) {
+            histogram.record(value)
+        }
+        val snapshot = histogram.snapshot()
+        assertEquals(1000L, snapshot.count)
+        assertEquals(1000L, snapshot.max)
+        assertNear(500, snapshot.p50)
+        assertNear(950, snapshot.p95)
+        assertNear(990, snapshot.p99)
+    }
+
+    @Test
+    fun hugeValues_areClampedToMax() {
+        val histogram = LatencyHistogram()
+        histogram.record(Long.MAX_VALUE / 2)
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentile(.5))
+    }
+
+    @Test
+    fun reset_clearsCounts() {
+        val histogram = LatencyHistogram()
+        histogram.record(10)
+        histogram.reset()
+        assertEquals(0L, histogram.count)
+        assertEquals(0L, histogram.getPercentile(.5))
+    }
+
+    private fun assertNear(expected: Long, actual: Long) {
+        //桶的相对误差不超过2^(1/4)
+        assertTrue("expected ~$expected but was $actual",
+                actual >= expected && actual <= expected * 1.19 + 1)
+    }
+}
@@ -0,0 +1,128 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Test
+import java.lang.management.ManagementFactory
+
+class PullStateDispatcherTest {
+
+    private class FakeSource : PullStateDispatcher.Source {
+        val states = IntArray(2)
+        val offsets = IntArray(2)
+
+        override fun getPullState(edge: Int): Int = states[edge]
+        override fun getPullFraction(edge: Int): Float = offsets[edge] / 100f
+        override fun getPullOffset(edge: Int): Int = offsets[edge]
+    }
+
+    private class CountingListener : DuplexSwipeRefreshLayout.OnPullStateListener {
+        var calls = 0
+        var lastEdge = -1
+        var lastState = -1
+        var lastOffset = -1
+
+        override fun onPullStateChanged(edge: Int, state: Int, fraction: Float, offset: Int) {
+            calls++
+            lastEdge = edge
+            lastState = state
+            lastOffset = offset
+        }
+    }
+
+    private val clock = ManualFrameClock()
+    private val source = FakeSource()
+    private val dispatcher = PullStateDispatcher(source)
+
+    @Test
+    fun severalChangesInOneFrame_dispatchOnce() {
+        val listener = CountingListener()
+        dispatcher.addListener(listener)
+
+        for (offset in 1..5) {
+            source.states[DuplexSwipeRefreshLayout.EDGE_TOP] = DuplexSwipeRefreshLayout.PULL_STATE_DRAGGING
+            source.offsets[DuplexSwipeRefreshLayout.EDGE_TOP] = offset * 10
+            dispatcher.invalidate(clock)
+        }
+        clock.runUntilIdle(10)
+
+        assertEquals(1, listener.calls)
+        assertEquals(DuplexSwipeRefreshLayout.EDGE_TOP, listener.lastEdge)
+        assertEquals(DuplexSwipeRefreshLayout.PULL_STATE_DRAGGING, listener.lastState)
+        assertEquals(50, listener.lastOffset)
+    }
+
+    @Test
+    fun unchangedValues_areNotDispatched() {
+        val listener = CountingListener()
+        dispatcher.addListener(listener)
+        source.offsets[DuplexSwipeRefreshLayout.EDGE_BOTTOM] = 20
+        dispatcher.invalidate(clock)
+        clock.runUntilIdle(10)
+
+        dispatcher.invalidate(clock)
+        clock.runUntilIdle(10)
+
+        assertEquals(1, listener.calls)
+    }
+
+    @Test
+    fun flush_dispatchesNowAndDropsFrameCallback() {
+        val listener = CountingListener()
+        dispatcher.addListener(listener)
+        source.offsets[DuplexSwipeRefreshLayout.EDGE_TOP] = 30
+        dispatcher.invalidate(clock)
+
+        dispatcher.flush()
+
+        assertEquals(1, listener.calls)
+        assertEquals(30, listener.lastOffset)
+        assertFalse(clock.hasPendingCallbacks())
+        //没有待分发的变化时flush什么也不做
+        dispatcher.flush()
+        assertEquals(1, listener.calls)
+    }
+
+    @Test
+    fun removingDuringDispatch_doesNotSkipOthers() {
+        val second = CountingListener()
+        val first = object : DuplexSwipeRefreshLayout.OnPullStateListener {
+            override fun onPullStateChanged(edge: Int, state: Int, fraction: Float, offset: Int) {
+                dispatcher.removeListener(this)
+            }
+        }
+        dispatcher.addListener(first)
+        dispatcher.addListener(second)
+        source.offsets[DuplexSwipeRefreshLayout.EDGE_TOP] = 10
+        dispatcher.invalidate(clock)
+        clock.runUntilIdle(10)
+
+        assertEquals(1, second.calls)
+    }
+
+    @Test
+    fun dispatch_allocatesNothing() {
+        val listener = CountingListener()
+        dispatcher.addListener(listener)
+        val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val threadId = Thread.currentThread().id
+        //预热
+        for (i in 0 until 10_000) {
+            source.offsets[DuplexSwipeRefreshLayout.EDGE_TOP] = i % 200
+            dispatcher.doFrame(0)
+        }
+
+        //空跑一次，扣除统计本身带来的分配
+        var baseline = bean.getThreadAllocatedBytes(threadId)
+        baseline = bean.getThreadAllocatedBytes(threadId) - baseline
+
+        val before = bean.getThreadAllocatedBytes(threadId)
+        for (i in 0 until 10_000) {
+            source.offsets[DuplexSwipeRefreshLayout.EDGE_TOP] = i % 200
+            dispatcher.doFrame(0)
+        }
+        val allocated = bean.getThreadAllocatedBytes(threadId) - before - baseline
+
+        assertEquals(0L, maxOf(0L, allocated))
+    }
+}
@@ -0,0 +1,38 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class RefreshPolicyTest {
+
+    @Test
+    fun neverRefreshed_isStale() {
+        val policy = RefreshPolicy(1000)
+        assertTrue(policy.isStale(0))
+        assertEquals(-1L, policy.lastRefreshedAt)
+    }
+
+    @Test
+    fun insideFreshnessWindow_isFresh() {
+        val policy = RefreshPolicy(1000)
+        policy.markRefreshed(5000)
+        assertFalse(policy.isStale(5000))
+        assertFalse(policy.isStale(5999))
+        assertTrue(policy.isStale(6000))
+    }
+
+    @Test
+    fun invalidate_makesDataStale() {
+        val policy = RefreshPolicy(1000)
+        policy.markRefreshed(5000)
+        policy.invalidate()
+        assertTrue(policy.isStale(5001))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun negativeWindow_isRejected() {
+        RefreshPolicy(-1)
+    }
+}
@@ -0,0 +1,47 @@
+package com.damiao.diy.view.swipe
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TouchPredictorTest {
+
+    private fun steadyDrag(predictor: TouchPredictor) {
+        //每8ms移动16像素
+        for (i in 0..5) {
+            predictor.addSample(i * 8L, 100f + i * 16f)
+        }
+    }
+
+    @Test
+    fun noSamples_returnsNaN() {
+        assertTrue(TouchPredictor().predictY(16).isNaN())
+    }
+
+    @Test
+    fun steadyDrag_extrapolatesToTarget() {
+        val predictor = TouchPredictor()
+        steadyDrag(predictor)
+
+        assertEquals(212f, predictor.predictY(56), 0.01f)
+    }
+
+    @Test
+    fun farTarget_isCapped() {
+        val predictor = TouchPredictor()
+        steadyDrag(predictor)
+
+        assertEquals(230f, predictor.predictY(1000), 0.01f)
+    }
+
+    @Test
+    fun reversal_returnsLatestSample() {
+        val predictor = TouchPredictor()
+        predictor.addSample(0, 100f)
+        predictor.addSample(8, 120f)
+        predictor.addSample(16, 140f)
+        predictor.addSample(24, 130f)
+
+        assertEquals(130f, predictor.predictY(40), 0f)
+    }
+}